@@ -0,0 +1,95 @@
+package lunatic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+import org.threeten.bp.chrono.Chronology;
+
+/**
+ * Cost of computing the enabled days of one month, cycling through a century of months. Months of
+ * other chronologies are composed from the masks of the ISO months they overlap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DateFilterBenchmark {
+  @Param({"none", "date", "month", "rules", "set"})
+  public String delegate;
+
+  @Param({"ISO", "Hijrah-umalqura"})
+  public String chronology;
+
+  private DateFilterInternal filter;
+  private Interval interval;
+  private int position;
+
+  @Setup public void setUp() {
+    interval = new Interval(LocalDate.of(1950, 1, 15), LocalDate.of(2049, 12, 15),
+        Chronology.of(chronology));
+    filter = new DateFilterInternal();
+    filter.setInterval(interval);
+    switch (delegate) {
+      case "date":
+        filter.setDelegate(new WeekdayFilter());
+        break;
+      case "month":
+        filter.setDelegate(new WeekdayMonthFilter());
+        break;
+      case "rules":
+        filter.setDelegate(DateRules.daysOfWeek(DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)
+            .and(DateRules.between(LocalDate.of(2016, 12, 24), LocalDate.of(2017, 1, 1)).not())
+            .and(DateRules.onOrAfter(LocalDate.of(1960, 1, 1))));
+        break;
+      case "set":
+        filter.setDelegate(weekdaySet(interval));
+        break;
+    }
+  }
+
+  @Benchmark public int getEnabledDates() {
+    if (++position == interval.months()) {
+      position = 0;
+    }
+    return filter.getEnabledDates(interval.month(position));
+  }
+
+  /** Lists every weekday in the interval, as a client with an availability list might. */
+  static DateSet weekdaySet(Interval interval) {
+    final DateSet.Builder builder = DateSet.builder();
+    for (int day = interval.startDay; day <= interval.endDay; day++) {
+      if (Months.dayOfWeek(day) <= 5) {
+        builder.add(LocalDate.ofEpochDay(day));
+      }
+    }
+    return builder.build();
+  }
+
+  /** Disables weekends, one date at a time. */
+  static class WeekdayFilter implements DateFilter {
+    @Override public boolean isEnabled(LocalDate date) {
+      final DayOfWeek dow = date.getDayOfWeek();
+      return dow != DayOfWeek.SATURDAY && dow != DayOfWeek.SUNDAY;
+    }
+  }
+
+  /** Disables weekends by shifting a weekly pattern across the month. */
+  static final class WeekdayMonthFilter extends WeekdayFilter implements MonthFilter {
+    // Monday through Friday, repeated over five weeks.
+    private static final long WEEKDAYS = 0x1f * 0x810204081L;
+
+    @Override public int enabledMask(YearMonth month) {
+      final int offset = month.atDay(1).getDayOfWeek().getValue() - 1;
+      return (int) (WEEKDAYS >>> offset);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package lunatic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.LocalDate;
+
+/**
+ * Cost of the interval queries made by the adapter on every layout and bind.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class IntervalBenchmark {
+  private Interval interval;
+  private LocalDate inside;
+  private LocalDate outside;
+
+  @Setup public void setUp() {
+    interval = new Interval(LocalDate.of(1950, 1, 15), LocalDate.of(2049, 12, 15));
+    inside = LocalDate.of(2016, 12, 10);
+    outside = LocalDate.of(2050, 1, 1);
+  }
+
+  @Benchmark public int months() {
+    return interval.months();
+  }
+
+  @Benchmark public boolean containsInside() {
+    return interval.contains(inside);
+  }
+
+  @Benchmark public boolean containsOutside() {
+    return interval.contains(outside);
+  }
+
+  @Benchmark public int positionOfDate() {
+    return interval.position(Months.of(inside));
+  }
+}
@@ -0,0 +1,74 @@
+package lunatic;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.temporal.WeekFields;
+
+/**
+ * Cost of computing a month's layout and label, cycling through a century of months, and of
+ * fetching it from the shared cache, cycling through the months of a decade. Months of other
+ * chronologies should cost the same as ISO months.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MonthModelBenchmark {
+  /** Fits in the cache, as when scrolling back and forth over recent months. */
+  private static final int CACHED_MONTHS = 120;
+
+  @Param({"en-US", "de-DE", "ar-EG", "ja-JP"})
+  public String locale;
+
+  @Param({"ISO", "Hijrah-umalqura"})
+  public String chronology;
+
+  private Interval interval;
+  private int today;
+  private WeekFields weekFields;
+  private String headerPattern;
+  private DateTimeFormatter headerFormatter;
+  private int position;
+
+  @Setup public void setUp() {
+    Options options = Options.builder(Locale.forLanguageTag(locale))
+        .min(LocalDate.of(1950, 1, 1))
+        .max(LocalDate.of(2049, 12, 31))
+        .now(LocalDate.of(2016, 12, 10))
+        .chronology(Chronology.of(chronology))
+        .build();
+    interval = new Interval(options.min(), options.max(), options.chronology());
+    today = (int) options.now().toEpochDay();
+    weekFields = options.weekFields();
+    headerPattern = options.headerPattern();
+    headerFormatter = options.buildHeaderFormatter();
+    MonthModelCache.clear();
+  }
+
+  @Benchmark public MonthModel compute() {
+    return MonthModel.compute(nextMonth(interval.months()), interval, today,
+        weekFields.getFirstDayOfWeek().getValue(), headerFormatter, false);
+  }
+
+  @Benchmark public MonthModel cached() {
+    return MonthModelCache.get(nextMonth(CACHED_MONTHS), interval, today, weekFields,
+        headerPattern, headerFormatter, false);
+  }
+
+  private int nextMonth(int count) {
+    if (++position >= count) {
+      position = 0;
+    }
+    return interval.month(position);
+  }
+}
@@ -0,0 +1,60 @@
+package lunatic;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.temporal.WeekFields;
+
+/**
+ * Cost of deriving formatters and labels from {@link Options}, which happens whenever options are
+ * set on a picker or its adapter is recreated, and of building them on a miss in the shared cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class OptionsBenchmark {
+  @Param({"en-US", "de-DE", "ar-EG", "ja-JP"})
+  public String locale;
+
+  private Options options;
+  private WeekFields weekFields;
+
+  @Setup public void setUp() {
+    options = Options.builder(Locale.forLanguageTag(locale)).build();
+    weekFields = options.weekFields();
+  }
+
+  @Benchmark public DateTimeFormatter buildHeaderFormatter() {
+    return options.buildHeaderFormatter();
+  }
+
+  @Benchmark public String[] buildWeekdayNames() {
+    return options.buildWeekdayNames();
+  }
+
+  @Benchmark public DateTimeFormatter buildHeaderFormatterUncached() {
+    FormatterCache.clear();
+    return options.buildHeaderFormatter();
+  }
+
+  @Benchmark public String[] buildWeekdayNamesUncached() {
+    FormatterCache.clear();
+    return options.buildWeekdayNames();
+  }
+
+  @Benchmark public void startOfWeekOffset(Blackhole bh) {
+    for (int i = 1; i <= 7; i++) {
+      bh.consume(Utils.startOfWeekOffset(weekFields, DayOfWeek.of(i)));
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package lunatic;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Properties;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.temporal.WeekFields;
+
+/**
+ * Binds every month of a 100-year interval through {@link MonthBinder}, as {@link MonthAdapter}
+ * does, along with the model lookup of {@code MonthView.bind}, measuring
+ * allocations per bind and binds per second, and fails if allocations exceed the budgets in the
+ * given properties file.
+ * <p />
+ * Three passes are made: a fling pass over every month with a cold model cache, as when flinging
+ * through the whole interval for the first time; a warm pass over months already in the model
+ * cache, as when scrolling back and forth; and a warm pass with a {@link MonthFilter} installed.
+ */
+public final class BindHarness {
+  private static final int WARMUP_ROUNDS = 20;
+  static final int WARM_MONTHS = 120;
+
+  private final Interval interval;
+  private final WeekFields weekFields;
+  private final String headerPattern;
+  private final DateTimeFormatter headerFormatter;
+  private final DateFilterInternal filter = new DateFilterInternal();
+  private final Selection selection = new Selection(Selection.Mode.RANGE);
+  private final MonthBinder binder;
+
+  // Written by every bind so that no work is optimized away.
+  private int sink;
+
+  // Bytes allocated by measuring allocations itself.
+  private long measureOverhead;
+
+  BindHarness() {
+    Options options = Options.builder(Locale.US)
+        .min(LocalDate.of(1950, 1, 1))
+        .max(LocalDate.of(2049, 12, 31))
+        .now(LocalDate.of(2016, 12, 10))
+        .build();
+    interval = new Interval(options.min(), options.max());
+    weekFields = options.weekFields();
+    headerPattern = options.headerPattern();
+    headerFormatter = options.buildHeaderFormatter();
+    filter.setInterval(interval);
+    binder = new MonthBinder(interval, (int) options.now().toEpochDay(), filter, selection);
+
+    selection.selectRange(LocalDate.of(2016, 11, 20), LocalDate.of(2017, 1, 10));
+    binder.setHighlight((int) LocalDate.of(2016, 12, 5).toEpochDay(),
+        (int) LocalDate.of(2016, 12, 25).toEpochDay());
+
+    run(0);
+    measureOverhead = run(0).bytes;
+  }
+
+  /**
+   * The per-month work of {@link MonthAdapter#onBindViewHolder}, minus the view.
+   */
+  private void bind(int position) {
+    final int month = interval.month(position);
+    final MonthModel model = MonthModelCache.get(month, interval, binder.getToday(), weekFields,
+        headerPattern, headerFormatter, false);
+    sink += model.rowCount + binder.getEnabledDays(month) + binder.getActivatedDays(month)
+        + binder.getHighlightedDays(month) + binder.getRangeEdges(month);
+  }
+
+  /**
+   * Bind the first {@code count} months of the interval, returning the bytes allocated net of
+   * measuring them.
+   */
+  Result run(int count) {
+    final long startBytes = allocatedBytes();
+    final long startNanos = System.nanoTime();
+    for (int position = 0; position < count; position++) {
+      bind(position);
+    }
+    final long nanos = System.nanoTime() - startNanos;
+    final long bytes = allocatedBytes() - startBytes - measureOverhead;
+    return new Result(count, Math.max(0, bytes), nanos);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: BindHarness <budgets.properties>");
+      System.exit(2);
+    }
+    Properties budgets = new Properties();
+    InputStream in = new FileInputStream(args[0]);
+    try {
+      budgets.load(in);
+    } finally {
+      in.close();
+    }
+
+    BindHarness harness = new BindHarness();
+    final int months = harness.interval.months();
+
+    // Let the JIT compile the bind path before measuring.
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      MonthModelCache.clear();
+      harness.run(months);
+    }
+
+    MonthModelCache.clear();
+    Result fling = harness.run(months);
+    harness.run(WARM_MONTHS);
+    Result warm = harness.run(WARM_MONTHS);
+
+    harness.filter.setDelegate(new WeekdayFilter());
+    harness.run(WARM_MONTHS);
+    Result filtered = harness.run(WARM_MONTHS);
+
+    boolean ok = true;
+    ok &= fling.check("fling", budgets);
+    ok &= warm.check("warm", budgets);
+    ok &= filtered.check("filtered", budgets);
+    System.out.println("(sink " + harness.sink + ")");
+    if (!ok) {
+      System.exit(1);
+    }
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  static final class Result {
+    final int binds;
+    final long bytes;
+    final long nanos;
+
+    Result(int binds, long bytes, long nanos) {
+      this.binds = binds;
+      this.bytes = bytes;
+      this.nanos = nanos;
+    }
+
+    boolean check(String name, Properties budgets) {
+      final long bytesPerBind = bytes / binds;
+      final long bindsPerSecond = nanos > 0 ? binds * 1000000000L / nanos : Long.MAX_VALUE;
+      final String budget = budgets.getProperty(name + ".bytesPerBind");
+      final boolean ok = budget == null || bytesPerBind <= Long.parseLong(budget.trim());
+      System.out.println(String.format(Locale.US, "%-9s %5d binds %8d B/bind %10d binds/s%s",
+          name, binds, bytesPerBind, bindsPerSecond,
+          ok ? "" : "  OVER BUDGET (" + budget.trim() + " B/bind)"));
+      return ok;
+    }
+  }
+
+  /** Disables weekends by shifting a weekly pattern across the month. */
+  private static final class WeekdayFilter implements MonthFilter {
+    // Monday through Friday, repeated over five weeks.
+    private static final long WEEKDAYS = 0x1f * 0x810204081L;
+
+    @Override public boolean isEnabled(LocalDate date) {
+      return date.getDayOfWeek().getValue() <= 5;
+    }
+
+    @Override public int enabledMask(YearMonth month) {
+      final int offset = Months.dayOfWeek(Months.firstDay(Months.of(month))) - 1;
+      return (int) (WEEKDAYS >>> offset);
+    }
+  }
+}
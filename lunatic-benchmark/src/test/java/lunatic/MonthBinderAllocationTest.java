@@ -0,0 +1,22 @@
+package lunatic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Once a month's model is cached, binding it must not allocate, so that scrolling back and forth
+ * through cached months produces no garbage.
+ */
+public final class MonthBinderAllocationTest {
+  private static final int WARMUP_ROUNDS = 50;
+
+  @Test public void warmBindDoesNotAllocate() {
+    MonthModelCache.clear();
+    final BindHarness harness = new BindHarness();
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      harness.run(BindHarness.WARM_MONTHS);
+    }
+    assertEquals(0, harness.run(BindHarness.WARM_MONTHS).bytes);
+  }
+}
@@ -0,0 +1,137 @@
+package lunatic;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import java.util.Locale;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.threeten.bp.LocalDate;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Flings a laid-out {@link DatePickerView} through a 100-year interval, one scroll step and frame
+ * at a time, and logs the months bound per second as counted through {@link PickerMetrics}.
+ * <p />
+ * The picker is scrolled down with a cold model cache, as when first flinging through the
+ * interval, then back up over months whose models are cached.
+ */
+@RunWith(AndroidJUnit4.class)
+public final class DatePickerFlingTest {
+  private static final String TAG = "DatePickerFlingTest";
+
+  private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+  private final CountingMetrics metrics = new CountingMetrics();
+
+  private DatePickerView picker;
+  private Bitmap bitmap;
+  private Canvas canvas;
+  private int step;
+
+  @Before public void setUp() {
+    MonthModelCache.clear();
+    instrumentation.runOnMainSync(new Runnable() {
+      @Override public void run() {
+        final Context context = new ContextThemeWrapper(
+            InstrumentationRegistry.getTargetContext(), android.R.style.Theme_DeviceDefault_Light);
+        picker = new DatePickerView(context);
+        picker.setOptions(Options.builder(Locale.US)
+            .min(LocalDate.of(1950, 1, 1))
+            .max(LocalDate.of(2049, 12, 31))
+            .now(LocalDate.of(2016, 12, 10))
+            .build());
+        picker.setMetrics(metrics, 1);
+
+        final DisplayMetrics display = context.getResources().getDisplayMetrics();
+        picker.measure(
+            View.MeasureSpec.makeMeasureSpec(display.widthPixels, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(display.heightPixels, View.MeasureSpec.EXACTLY));
+        picker.layout(0, 0, picker.getMeasuredWidth(), picker.getMeasuredHeight());
+        bitmap = Bitmap.createBitmap(picker.getWidth(), picker.getHeight(),
+            Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(bitmap);
+        // A fast fling moves about a quarter of the screen per frame.
+        step = picker.getHeight() / 4;
+      }
+    });
+  }
+
+  @After public void tearDown() {
+    bitmap.recycle();
+  }
+
+  @Test public void flingThroughInterval() {
+    final int months = picker.getAdapter().getItemCount();
+    final int down = fling("down", step);
+    assertTrue("bound " + down + " of " + months + " months", down >= months);
+    // Months still attached or cached at the end are not bound again on the way back.
+    fling("up", -step);
+  }
+
+  /**
+   * Scroll by {@code dy} and draw, once per frame, until the picker can scroll no further,
+   * returning the number of months bound since the last fling, or since the first layout.
+   */
+  private int fling(final String name, final int dy) {
+    final int[] result = new int[1];
+    instrumentation.runOnMainSync(new Runnable() {
+      @Override public void run() {
+        int frames = 0;
+        final long start = System.nanoTime();
+        while (picker.canScrollVertically(dy)) {
+          picker.scrollBy(0, dy);
+          picker.draw(canvas);
+          frames++;
+        }
+        final long nanos = System.nanoTime() - start;
+
+        Log.i(TAG, String.format(Locale.US,
+            "%-4s %5d frames %5d binds (%d cached) %8d binds/s %6d draws", name, frames,
+            metrics.binds, metrics.cachedBinds, metrics.binds * 1000000000L / nanos,
+            metrics.draws));
+        result[0] = metrics.binds;
+        metrics.reset();
+      }
+    });
+    return result[0];
+  }
+
+  private static final class CountingMetrics implements PickerMetrics {
+    int binds;
+    int cachedBinds;
+    int draws;
+
+    void reset() {
+      binds = 0;
+      cachedBinds = 0;
+      draws = 0;
+    }
+
+    @Override public void onViewCreated(long durationNanos) {
+    }
+
+    @Override public void onMonthBound(long durationNanos, boolean modelCached) {
+      binds++;
+      if (modelCached) {
+        cachedBinds++;
+      }
+    }
+
+    @Override public void onFilterEvaluated(long durationNanos) {
+    }
+
+    @Override public void onMonthDrawn(long durationNanos, boolean renderCached) {
+      draws++;
+    }
+  }
+}
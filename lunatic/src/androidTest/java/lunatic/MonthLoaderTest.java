@@ -0,0 +1,287 @@
+package lunatic;
+
+import android.app.Instrumentation;
+import android.os.Looper;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.SparseArray;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Loads are queued rather than run, so that each test decides when they run on the test thread;
+ * results are then delivered through the main looper, as in a picker.
+ */
+@RunWith(AndroidJUnit4.class)
+public final class MonthLoaderTest {
+  private static final int MAX_SIZE = 3;
+
+  private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+  private final QueueExecutor executor = new QueueExecutor();
+  private final List<Integer> loads = new ArrayList<>();
+  private final List<int[]> delivered = new ArrayList<>();
+
+  private MonthLoader<Integer> loader;
+  /** Added to each result, so that reloads can be told apart. */
+  private volatile int version;
+  /** The number of loads still to throw. */
+  private volatile int failures;
+  private boolean deliveredOffMainThread;
+
+  @Before public void setUp() {
+    loader = new MonthLoader<Integer>(executor, MAX_SIZE, new MonthLoader.Callback<Integer>() {
+      @Override public void onMonthLoaded(int month, Integer result, Integer previous) {
+        deliveredOffMainThread |= Looper.myLooper() != Looper.getMainLooper();
+        delivered.add(new int[] { month, result, previous != null ? previous : -1 });
+      }
+    }) {
+      @Override protected Integer load(int month) {
+        synchronized (loads) {
+          loads.add(month);
+        }
+        if (failures > 0) {
+          failures--;
+          throw new IllegalStateException("Load failed.");
+        }
+        return month * 10 + version;
+      }
+    };
+  }
+
+  @Test public void getLoadsOnceAndDeliversOnMainThread() {
+    assertNull(get(5));
+    assertNull(get(5));
+    runLoads();
+
+    assertEquals(1, loads.size());
+    assertEquals(1, delivered.size());
+    assertDelivered(0, 5, 50, -1);
+    assertFalse(deliveredOffMainThread);
+    assertEquals(Integer.valueOf(50), get(5));
+  }
+
+  @Test public void failedLoadIsRetriedOnNextRequest() {
+    failures = 1;
+    assertNull(get(5));
+    for (Runnable load : executor.drain()) {
+      try {
+        load.run();
+        fail();
+      } catch (IllegalStateException expected) {
+      }
+    }
+    instrumentation.waitForIdleSync();
+    assertTrue(delivered.isEmpty());
+
+    assertNull(get(5));
+    runLoads();
+    assertEquals(2, loads.size());
+    assertDelivered(0, 5, 50, -1);
+    assertEquals(Integer.valueOf(50), get(5));
+  }
+
+  @Test public void rejectedLoadIsRetriedOnNextRequest() {
+    executor.rejections = 1;
+    final boolean[] rejected = new boolean[1];
+    onMain(new Runnable() {
+      @Override public void run() {
+        try {
+          loader.get(5);
+        } catch (RejectedExecutionException e) {
+          rejected[0] = true;
+        }
+      }
+    });
+    assertTrue(rejected[0]);
+
+    assertNull(get(5));
+    runLoads();
+    assertEquals(1, loads.size());
+    assertEquals(Integer.valueOf(50), get(5));
+  }
+
+  @Test public void prefetchCancelsLoadsOutsideOfWindow() {
+    onMain(new Runnable() {
+      @Override public void run() {
+        loader.prefetch(1, 5);
+        loader.prefetch(3, 4);
+      }
+    });
+    runLoads();
+
+    assertEquals(2, loads.size());
+    assertTrue(loads.contains(3));
+    assertTrue(loads.contains(4));
+    assertEquals(2, delivered.size());
+  }
+
+  @Test public void reloadKeepsResultUntilReplaced() {
+    get(1);
+    runLoads();
+    version = 1;
+    onMain(new Runnable() {
+      @Override public void run() {
+        loader.reload();
+      }
+    });
+
+    assertEquals(Integer.valueOf(10), get(1));
+    runLoads();
+    assertEquals(Integer.valueOf(11), get(1));
+    assertDelivered(1, 1, 11, 10);
+  }
+
+  @Test public void reloadRestartsPendingLoads() {
+    get(1);
+    final List<Runnable> started = executor.drain();
+    version = 1;
+    onMain(new Runnable() {
+      @Override public void run() {
+        loader.reload();
+      }
+    });
+
+    // The load which started before the reload is dropped.
+    for (Runnable load : started) {
+      load.run();
+    }
+    runLoads();
+    assertEquals(1, delivered.size());
+    assertDelivered(0, 1, 11, -1);
+  }
+
+  @Test public void invalidateDropsResultsAndPendingLoads() {
+    get(1);
+    runLoads();
+    get(2);
+    onMain(new Runnable() {
+      @Override public void run() {
+        loader.invalidate();
+      }
+    });
+    runLoads();
+
+    assertEquals(1, loads.size());
+    assertEquals(1, delivered.size());
+    assertNull(get(1));
+  }
+
+  @Test public void invalidateMonthKeepsOtherMonths() {
+    onMain(new Runnable() {
+      @Override public void run() {
+        loader.prefetch(1, 2);
+      }
+    });
+    runLoads();
+    onMain(new Runnable() {
+      @Override public void run() {
+        loader.invalidate(1);
+      }
+    });
+
+    assertNull(get(1));
+    assertEquals(Integer.valueOf(20), get(2));
+  }
+
+  @Test public void evictsMonthFurthestFromLastRequested() {
+    onMain(new Runnable() {
+      @Override public void run() {
+        loader.prefetch(1, 3);
+      }
+    });
+    runLoads();
+    get(10);
+    runLoads();
+
+    final SparseArray<Integer> cached = snapshot();
+    assertEquals(MAX_SIZE, cached.size());
+    assertTrue(cached.indexOfKey(1) < 0);
+    assertEquals(Integer.valueOf(100), cached.get(10));
+  }
+
+  @Test public void restoreKeepsCachedResults() {
+    get(1);
+    runLoads();
+    final SparseArray<Integer> results = new SparseArray<>();
+    results.put(1, -1);
+    results.put(2, -2);
+    onMain(new Runnable() {
+      @Override public void run() {
+        loader.restore(results);
+      }
+    });
+
+    assertEquals(Integer.valueOf(10), get(1));
+    assertEquals(Integer.valueOf(-2), get(2));
+  }
+
+  private void assertDelivered(int index, int month, int result, int previous) {
+    final int[] delivery = delivered.get(index);
+    assertEquals(month, delivery[0]);
+    assertEquals(result, delivery[1]);
+    assertEquals(previous, delivery[2]);
+  }
+
+  private Integer get(final int month) {
+    final Integer[] result = new Integer[1];
+    onMain(new Runnable() {
+      @Override public void run() {
+        result[0] = loader.get(month);
+      }
+    });
+    return result[0];
+  }
+
+  private SparseArray<Integer> snapshot() {
+    final List<SparseArray<Integer>> result = new ArrayList<>();
+    onMain(new Runnable() {
+      @Override public void run() {
+        result.add(loader.snapshot());
+      }
+    });
+    return result.get(0);
+  }
+
+  private void onMain(Runnable runnable) {
+    instrumentation.runOnMainSync(runnable);
+  }
+
+  /** Run every queued load on this thread, then wait for their results to be delivered. */
+  private void runLoads() {
+    for (Runnable load : executor.drain()) {
+      load.run();
+    }
+    instrumentation.waitForIdleSync();
+  }
+
+  private static final class QueueExecutor implements Executor {
+    private final List<Runnable> queue = new ArrayList<>();
+    /** The number of loads still to reject. */
+    int rejections;
+
+    @Override public synchronized void execute(Runnable command) {
+      if (rejections > 0) {
+        rejections--;
+        throw new RejectedExecutionException();
+      }
+      queue.add(command);
+    }
+
+    synchronized List<Runnable> drain() {
+      final List<Runnable> drained = new ArrayList<>(queue);
+      queue.clear();
+      return drained;
+    }
+  }
+}
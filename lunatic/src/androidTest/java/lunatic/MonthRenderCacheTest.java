@@ -0,0 +1,74 @@
+package lunatic;
+
+import android.graphics.Bitmap;
+import android.support.test.runner.AndroidJUnit4;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(AndroidJUnit4.class)
+public final class MonthRenderCacheTest {
+  private static final int SIZE = 8;
+  private static final String[] WEEKDAY_LABELS = { "S", "M", "T", "W", "T", "F", "S" };
+
+  // Room for two renders.
+  private final MonthRenderCache cache = new MonthRenderCache(2 * SIZE * SIZE * 4);
+
+  @Test public void reusesEvictedRenderWhichIsNotHeld() {
+    final Bitmap first = render(model(1));
+    render(model(2));
+    render(model(3));
+
+    assertSame(first, render(model(4)));
+  }
+
+  @Test public void reusesEvictedRenderOnlyOnceReleased() {
+    final Bitmap first = render(model(1));
+    cache.hold(first);
+    render(model(2));
+
+    final Bitmap third = render(model(3));
+    assertNotSame(first, third);
+    assertNotSame(first, render(model(4)));
+
+    cache.release(first);
+    assertSame(first, render(model(5)));
+  }
+
+  @Test public void keepsRenderHeldByEveryView() {
+    final Bitmap first = render(model(1));
+    cache.hold(first);
+    cache.hold(first);
+    render(model(2));
+    render(model(3));
+
+    cache.release(first);
+    assertNotSame(first, render(model(4)));
+    cache.release(first);
+    assertSame(first, render(model(5)));
+  }
+
+  @Test public void cachesRenders() {
+    final MonthModel model = model(1);
+    final Bitmap render = render(model);
+    assertSame(render, get(model));
+    assertNull(get(model(2)));
+  }
+
+  private Bitmap get(MonthModel model) {
+    return cache.get(model, -1, 0, 0, 0, null, null, WEEKDAY_LABELS, SIZE, SIZE);
+  }
+
+  private Bitmap render(MonthModel model) {
+    get(model);
+    cache.beginRender();
+    return cache.endRender();
+  }
+
+  private static MonthModel model(int month) {
+    return new MonthModel(month, month * 31, 0, 31, -1, "");
+  }
+}
@@ -0,0 +1,132 @@
+package lunatic;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import java.util.Locale;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.temporal.WeekFields;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Steady-state binds and frames of a {@link MonthView} must not allocate.
+ * <p />
+ * Allocations are counted by the runtime for the test thread only, after each path has run enough
+ * times to fill the month model cache and any lazily created drawing state.
+ */
+@RunWith(AndroidJUnit4.class)
+@SuppressWarnings("deprecation") // Debug.*AllocCount, the only per-thread counters on API 16.
+public final class MonthViewAllocationTest {
+  private static final int WARMUP_FRAMES = 20;
+  private static final int FRAMES = 100;
+
+  private static final Interval INTERVAL =
+      new Interval(LocalDate.of(2016, 1, 1), LocalDate.of(2017, 12, 31));
+  private static final int TODAY = (int) LocalDate.of(2016, 12, 10).toEpochDay();
+  private static final int[] MONTHS = {
+      Months.pack(2016, 11), Months.pack(2016, 12), Months.pack(2017, 1)
+  };
+
+  private MonthView view;
+  private Bitmap bitmap;
+  private Canvas canvas;
+
+  @Before public void setUp() {
+    final Context context = new ContextThemeWrapper(InstrumentationRegistry.getTargetContext(),
+        android.R.style.Theme_DeviceDefault_Light);
+    view = new MonthView(context);
+    view.setStaticOptions(WeekFields.SUNDAY_START, "MMMM yyyy",
+        DateTimeFormatter.ofPattern("MMMM yyyy", Locale.US),
+        new String[] { "S", "M", "T", "W", "T", "F", "S" }, null);
+    bind(MONTHS[1]);
+
+    final int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    view.measure(unspecified, unspecified);
+    view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    bitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888);
+    canvas = new Canvas(bitmap);
+  }
+
+  @After public void tearDown() {
+    bitmap.recycle();
+  }
+
+  @Test public void drawDoesNotAllocate() {
+    assertEquals(0, countDrawAllocations());
+  }
+
+  @Test public void drawRangeSelectionDoesNotAllocate() {
+    view.setActivatedDays(Utils.daysMask(20, 31), 1, 31);
+    view.setHighlightedDays(Utils.daysMask(5, 25), 1, 31);
+    view.setRangeEdges(MonthView.RANGE_ACTIVATED_AFTER);
+    assertEquals(0, countDrawAllocations());
+  }
+
+  @Test public void drawGlyphAtlasDoesNotAllocate() {
+    view.setGlyphAtlasEnabled(true);
+    assertEquals(0, countDrawAllocations());
+  }
+
+  @Test public void drawRenderCacheHitDoesNotAllocate() {
+    view.setRenderCache(new MonthRenderCache(4 * bitmap.getByteCount()));
+    assertEquals(0, countDrawAllocations());
+  }
+
+  @Test public void bindCachedMonthsDoesNotAllocate() {
+    for (int i = 0; i < WARMUP_FRAMES; i++) {
+      bindAndDrawMonths();
+    }
+
+    startCounting();
+    for (int i = 0; i < FRAMES; i++) {
+      bindAndDrawMonths();
+    }
+    assertEquals(0, stopCounting());
+  }
+
+  private int countDrawAllocations() {
+    for (int i = 0; i < WARMUP_FRAMES; i++) {
+      view.onDraw(canvas);
+    }
+
+    startCounting();
+    for (int i = 0; i < FRAMES; i++) {
+      view.onDraw(canvas);
+    }
+    return stopCounting();
+  }
+
+  /** Rebind each month in turn, as when scrolling back and forth over them. */
+  private void bindAndDrawMonths() {
+    for (int month : MONTHS) {
+      bind(month);
+      view.onDraw(canvas);
+    }
+  }
+
+  private void bind(int month) {
+    view.bind(month, INTERVAL, TODAY, Utils.daysMask(INTERVAL.length(month)), 0, 0, null);
+  }
+
+  private static void startCounting() {
+    Debug.startAllocCounting();
+    Debug.resetThreadAllocCount();
+  }
+
+  private static int stopCounting() {
+    final int count = Debug.getThreadAllocCount();
+    Debug.stopAllocCounting();
+    return count;
+  }
+}
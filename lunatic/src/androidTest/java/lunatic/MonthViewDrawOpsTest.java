@@ -0,0 +1,127 @@
+package lunatic;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.temporal.WeekFields;
+
+import static org.junit.Assert.fail;
+import static org.threeten.bp.DayOfWeek.FRIDAY;
+import static org.threeten.bp.DayOfWeek.MONDAY;
+import static org.threeten.bp.DayOfWeek.THURSDAY;
+import static org.threeten.bp.DayOfWeek.TUESDAY;
+import static org.threeten.bp.DayOfWeek.WEDNESDAY;
+
+/**
+ * Every month of a 100-year interval must draw within the draw call and paint change budgets in
+ * {@code bind-budgets.properties}, so that drawing days grouped by state cannot regress unnoticed.
+ * <p />
+ * Months are bound as {@link MonthAdapter} binds them, with the selection and highlight of the
+ * benchmark's bind harness, and drawn directly rather than through a render cache.
+ */
+@RunWith(AndroidJUnit4.class)
+public final class MonthViewDrawOpsTest {
+  private static final Interval INTERVAL =
+      new Interval(LocalDate.of(1950, 1, 1), LocalDate.of(2049, 12, 31));
+  private static final int TODAY = (int) LocalDate.of(2016, 12, 10).toEpochDay();
+
+  private final DateFilterInternal filter = new DateFilterInternal();
+  private final Selection selection = new Selection(Selection.Mode.RANGE);
+  private final Properties budgets = new Properties();
+
+  private MonthBinder binder;
+  private MonthView view;
+  private Bitmap bitmap;
+  private RecordingCanvas canvas;
+
+  @Before public void setUp() throws IOException {
+    final InputStream in =
+        InstrumentationRegistry.getContext().getAssets().open("bind-budgets.properties");
+    try {
+      budgets.load(in);
+    } finally {
+      in.close();
+    }
+
+    filter.setInterval(INTERVAL);
+    binder = new MonthBinder(INTERVAL, TODAY, filter, selection);
+    selection.selectRange(LocalDate.of(2016, 11, 20), LocalDate.of(2017, 1, 10));
+    binder.setHighlight((int) LocalDate.of(2016, 12, 5).toEpochDay(),
+        (int) LocalDate.of(2016, 12, 25).toEpochDay());
+
+    final Context context = new ContextThemeWrapper(InstrumentationRegistry.getTargetContext(),
+        android.R.style.Theme_DeviceDefault_Light);
+    view = new MonthView(context);
+    view.setStaticOptions(WeekFields.SUNDAY_START, "MMMM yyyy",
+        DateTimeFormatter.ofPattern("MMMM yyyy", Locale.US),
+        new String[] { "S", "M", "T", "W", "T", "F", "S" }, null);
+    bind(INTERVAL.startMonth);
+
+    final int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    view.measure(unspecified, unspecified);
+    view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    bitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888);
+    canvas = new RecordingCanvas(bitmap);
+  }
+
+  @After public void tearDown() {
+    bitmap.recycle();
+  }
+
+  @Test public void flingWithinBudgets() {
+    assertMonthsWithinBudgets("fling");
+  }
+
+  @Test public void filteredWithinBudgets() {
+    filter.setDelegate(DateRules.daysOfWeek(MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY));
+    assertMonthsWithinBudgets("filtered");
+  }
+
+  @Test public void glyphAtlasWithinBudgets() {
+    view.setGlyphAtlasEnabled(true);
+    assertMonthsWithinBudgets("atlas");
+  }
+
+  private void assertMonthsWithinBudgets(String pass) {
+    final int drawOps = budget(pass + ".drawOpsPerFrame");
+    final int paintChanges = budget(pass + ".paintChangesPerFrame");
+    for (int month = INTERVAL.startMonth; month <= INTERVAL.endMonth; month++) {
+      bind(month);
+      canvas.reset();
+      view.onDraw(canvas);
+      if (canvas.drawOps > drawOps || canvas.paintChanges > paintChanges) {
+        fail(String.format(Locale.US, "%s %d-%02d: %d draw ops (budget %d), "
+                + "%d paint changes (budget %d)", pass, Months.year(month),
+            Months.monthOfYear(month), canvas.drawOps, drawOps, canvas.paintChanges,
+            paintChanges));
+      }
+    }
+  }
+
+  private void bind(int month) {
+    view.setRangeEdges(binder.getRangeEdges(month));
+    view.bind(month, INTERVAL, TODAY, binder.getEnabledDays(month),
+        binder.getActivatedDays(month), binder.getHighlightedDays(month), null);
+  }
+
+  private int budget(String key) {
+    final String budget = budgets.getProperty(key);
+    if (budget == null) {
+      throw new AssertionError("No budget for " + key);
+    }
+    return Integer.parseInt(budget.trim());
+  }
+}
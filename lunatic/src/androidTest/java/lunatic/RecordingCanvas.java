@@ -0,0 +1,155 @@
+package lunatic;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+/**
+ * A canvas which counts the draw calls made on it, and the paint changes between them: a call
+ * whose paint has a different color, alpha or typeface than the previous call's.
+ * <p />
+ * Calls are still drawn to the bitmap, so that the counts come from the real drawing path.
+ */
+final class RecordingCanvas extends Canvas {
+  int drawOps;
+  int paintChanges;
+
+  private boolean drawing;
+  private boolean hasPaint;
+  private int color;
+  private int alpha;
+  private Typeface typeface;
+
+  RecordingCanvas(Bitmap bitmap) {
+    super(bitmap);
+  }
+
+  /**
+   * Clear the counts, e.g. before each frame. The first call afterwards is not a paint change.
+   */
+  void reset() {
+    drawOps = 0;
+    paintChanges = 0;
+    hasPaint = false;
+    typeface = null;
+  }
+
+  /**
+   * Record a draw call unless it is made from within another, as some platform versions implement
+   * overloads by calling one another. Returns whether it was recorded.
+   */
+  private boolean enter(Paint paint) {
+    if (drawing) {
+      return false;
+    }
+    drawing = true;
+    record(paint);
+    return true;
+  }
+
+  private void exit(boolean outer) {
+    if (outer) {
+      drawing = false;
+    }
+  }
+
+  private void record(Paint paint) {
+    drawOps++;
+    if (paint == null) {
+      return;
+    }
+    if (hasPaint && (paint.getColor() != color || paint.getAlpha() != alpha
+        || paint.getTypeface() != typeface)) {
+      paintChanges++;
+    }
+    hasPaint = true;
+    color = paint.getColor();
+    alpha = paint.getAlpha();
+    typeface = paint.getTypeface();
+  }
+
+  @Override public void drawText(char[] text, int index, int count, float x, float y,
+      Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawText(text, index, count, x, y, paint);
+    exit(outer);
+  }
+
+  @Override public void drawText(String text, float x, float y, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawText(text, x, y, paint);
+    exit(outer);
+  }
+
+  @Override public void drawText(String text, int start, int end, float x, float y,
+      Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawText(text, start, end, x, y, paint);
+    exit(outer);
+  }
+
+  @Override public void drawText(CharSequence text, int start, int end, float x, float y,
+      Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawText(text, start, end, x, y, paint);
+    exit(outer);
+  }
+
+  @Override public void drawRect(RectF rect, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawRect(rect, paint);
+    exit(outer);
+  }
+
+  @Override public void drawRect(Rect r, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawRect(r, paint);
+    exit(outer);
+  }
+
+  @Override public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawRect(left, top, right, bottom, paint);
+    exit(outer);
+  }
+
+  @Override public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawRoundRect(rect, rx, ry, paint);
+    exit(outer);
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawBitmap(bitmap, left, top, paint);
+    exit(outer);
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawBitmap(bitmap, src, dst, paint);
+    exit(outer);
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawBitmap(bitmap, src, dst, paint);
+    exit(outer);
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawBitmap(bitmap, matrix, paint);
+    exit(outer);
+  }
+
+  @Override public void drawCircle(float cx, float cy, float radius, Paint paint) {
+    final boolean outer = enter(paint);
+    super.drawCircle(cx, cy, radius, paint);
+    exit(outer);
+  }
+}
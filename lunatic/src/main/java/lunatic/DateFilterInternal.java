@@ -0,0 +1,155 @@
+package lunatic;
+
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+
+/**
+ * Computes enabled-day masks for the months of a {@link DatePickerView}, combining any client
+ * filter with the picker's interval.
+ */
+class DateFilterInternal {
+  private MonthFilter delegate;
+  // The delegate, if it can be evaluated without creating a YearMonth.
+  private DateRules rules;
+  private Interval interval;
+  private MetricsSampler metrics;
+
+  // For chronologies other than ISO, the last ISO month evaluated, which usually also overlaps the
+  // next month to be evaluated. Masks are evaluated on loader threads, so entries are immutable
+  // and tagged with the generation of the delegate they were computed from.
+  private volatile IsoMask lastIsoMask;
+  private volatile int generation;
+
+  void setDelegate(DateFilter filter) {
+    generation++;
+    if (filter == null || filter instanceof MonthFilter) {
+      delegate = (MonthFilter) filter;
+    } else {
+      delegate = new DateFilterAdapter(filter);
+    }
+    if (filter instanceof DateRules) {
+      rules = (DateRules) filter;
+    } else if (filter instanceof DateSet) {
+      rules = DateRules.in((DateSet) filter);
+    } else {
+      rules = null;
+    }
+  }
+
+  /**
+   * Forget results computed from the delegate, e.g. because its state has changed.
+   */
+  void invalidate() {
+    generation++;
+  }
+
+  void setInterval(Interval interval) {
+    this.interval = interval;
+  }
+
+  void setMetrics(MetricsSampler metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Return a mask of enabled days in a packed month of the interval's chronology, where bit
+   * {@code n} represents day {@code n + 1}.
+   */
+  int getEnabledDates(int month) {
+    final Interval interval = this.interval;
+
+    // By default, days are enabled.
+    int mask = Utils.daysMask(interval.length(month));
+
+    // Pass through to any client filter.
+    if (delegate != null) {
+      if (metrics != null && metrics.sampleFilter()) {
+        final long start = System.nanoTime();
+        mask &= evaluateDelegate(interval, month);
+        metrics.reportFilter(System.nanoTime() - start);
+      } else {
+        mask &= evaluateDelegate(interval, month);
+      }
+    }
+
+    // In all cases, disable dates outside of our view interval.
+    if (month == interval.startMonth) {
+      mask &= ~Utils.daysMask(interval.startDay - interval.firstDay(month));
+    }
+    if (month == interval.endMonth) {
+      mask &= Utils.daysMask(interval.endDay - interval.firstDay(month) + 1);
+    }
+    return mask;
+  }
+
+  private int evaluateDelegate(Interval interval, int month) {
+    if (interval.isIso()) {
+      return evaluateIsoMonth(month);
+    }
+
+    // Clients filter ISO months, so shift together the masks of the ISO months which overlap this
+    // one; a month of any chronology overlaps at most three of them.
+    final int firstDay = interval.firstDay(month);
+    final int length = interval.length(month);
+    int mask = 0;
+    for (int isoMonth = Months.ofEpochDay(firstDay), shift = Months.firstDay(isoMonth) - firstDay;
+        shift < length; shift += Months.length(isoMonth), isoMonth++) {
+      final int isoMask = evaluateOverlappingIsoMonth(isoMonth);
+      mask |= shift >= 0 ? isoMask << shift : isoMask >>> -shift;
+    }
+    return mask & Utils.daysMask(length);
+  }
+
+  private int evaluateOverlappingIsoMonth(int month) {
+    final int generation = this.generation;
+    final IsoMask last = lastIsoMask;
+    if (last != null && last.month == month && last.generation == generation) {
+      return last.mask;
+    }
+    final int mask = evaluateIsoMonth(month);
+    lastIsoMask = new IsoMask(month, mask, generation);
+    return mask;
+  }
+
+  private int evaluateIsoMonth(int month) {
+    return rules != null ? rules.mask(month) : delegate.enabledMask(Months.toYearMonth(month));
+  }
+
+  private static final class IsoMask {
+    final int month;
+    final int mask;
+    final int generation;
+
+    IsoMask(int month, int mask, int generation) {
+      this.month = month;
+      this.mask = mask;
+      this.generation = generation;
+    }
+  }
+
+  /**
+   * Evaluates a plain {@link DateFilter} day by day.
+   */
+  private static final class DateFilterAdapter implements MonthFilter {
+    private final DateFilter filter;
+
+    DateFilterAdapter(DateFilter filter) {
+      this.filter = filter;
+    }
+
+    @Override public int enabledMask(YearMonth month) {
+      int mask = 0;
+      final int length = month.lengthOfMonth();
+      for (int i = 0; i < length; i++) {
+        if (filter.isEnabled(month.atDay(i + 1))) {
+          mask |= 1 << i;
+        }
+      }
+      return mask;
+    }
+
+    @Override public boolean isEnabled(LocalDate date) {
+      return filter.isEnabled(date);
+    }
+  }
+}
@@ -2,23 +2,79 @@ package lunatic;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.graphics.PointF;
+import android.support.v4.os.ParcelableCompat;
+import android.support.v4.os.ParcelableCompatCreatorCallbacks;
+import android.support.v4.view.AbsSavedState;
 import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.LinearSmoothScroller;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.View;
 import codes.tad.lunatic.R;
-import java.util.Arrays;
+import java.util.concurrent.Executor;
 import org.threeten.bp.LocalDate;
-import org.threeten.bp.YearMonth;
 
 public class DatePickerView extends RecyclerView {
+  /** Number of months on either side of the visible months to evaluate the filter for. */
+  private static final int FILTER_PREFETCH_MONTHS = 2;
+  private static final int FILTER_CACHE_SIZE = 48;
+
+  /** Number of months on either side of the visible months to load decorations for. */
+  private static final int DECORATION_PREFETCH_MONTHS = 2;
+  private static final int DECORATION_CACHE_SIZE = 24;
+
+  private static final DayDecoration[] NO_DECORATIONS = new DayDecoration[0];
+
+  /** RecycledViewPool's default number of views kept per view type. */
+  private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+  /** Smooth scrolls over more months than this first jump to this many months from the target. */
+  private static final int SMOOTH_SCROLL_MAX_MONTHS = 3;
+
+  private static final int NO_MONTH = Integer.MIN_VALUE;
+
   private Options options;
   private Interval interval;
   private DateFilterInternal filter;
   private DateFilter filterDelegate;
+  private Executor filterExecutor;
+  private MonthLoader<Integer> filterLoader;
+  private DayDecorationSource decorationSource;
+  private MonthLoader<DayDecoration[]> decorationLoader;
+  private int prefetchFirst = NO_POSITION;
+  private int prefetchLast = NO_POSITION;
   private SelectionListener listenerDelegate;
+  private MonthAdapter monthAdapter;
+  private YearAdapter yearAdapter;
+  private boolean yearOverview;
+  /** The month shown before switching to years, to return to if its year is still on top. */
+  private int overviewAnchor = NO_MONTH;
+  private final Selection selection = new Selection(Selection.Mode.SINGLE);
   private int monthViewResId;
 
+  private LocalDate highlightStart;
+  private LocalDate highlightEnd;
+
   private boolean invalidateAdapter;
+  private int warmUpRemaining;
+  private MonthRenderCache renderCache;
+  private boolean glyphAtlasEnabled;
+  private MetricsSampler metrics;
+  private final int fastScrollColor;
+  private YearFastScroller fastScroller;
+
+  // Where to scroll once the adapter is created: a packed month, and the offset of its top.
+  private int pendingScrollMonth = NO_MONTH;
+  private int pendingScrollOffset;
+  private int smoothScrollTarget = NO_POSITION;
+
+  private Caches pendingCaches;
 
   public DatePickerView(Context context) {
     this(context, null);
@@ -36,6 +92,10 @@ public class DatePickerView extends RecyclerView {
 
     monthViewResId = a.getResourceId(R.styleable.lunatic_DatePickerView_lunatic_monthView,
         R.layout.lunatic_month_view);
+    int warmUpCount = a.getInt(R.styleable.lunatic_DatePickerView_lunatic_warmUpCount, 0);
+    boolean fastScrollEnabled =
+        a.getBoolean(R.styleable.lunatic_DatePickerView_lunatic_fastScrollEnabled, false);
+    fastScrollColor = a.getColor(R.styleable.lunatic_DatePickerView_lunatic_fastScrollColor, 0);
 
     a.recycle();
 
@@ -43,15 +103,95 @@ public class DatePickerView extends RecyclerView {
     setItemAnimator(null);
 
     filter = new DateFilterInternal();
+    selection.setObserver(selectionObserver);
+
+    addOnScrollListener(new OnScrollListener() {
+      @Override public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        prefetch(false);
+      }
+    });
+
+    if (warmUpCount > 0) {
+      warmUp(warmUpCount);
+    }
+    setFastScrollEnabled(fastScrollEnabled);
   }
 
+  /**
+   * Set the picker options. If months are already displayed, only the months affected by the
+   * change are rebound.
+   */
   public void setOptions(Options options) {
     if (options == this.options) {
       return;
     }
+    final Options oldOptions = this.options;
+    final Interval oldInterval = interval;
     this.options = options;
-    interval = new Interval(options.min(), options.max());
-    invalidateAdapter();
+    interval = new Interval(options.min(), options.max(), options.chronology());
+    filter.setInterval(interval);
+    if (fastScroller != null) {
+      fastScroller.setInterval(interval);
+    }
+
+    // Months are packed in their chronology, ISO until options are set.
+    final boolean chronologyChanged = oldInterval == null
+        ? !interval.isIso()
+        : !oldInterval.chronology.equals(interval.chronology);
+    if (chronologyChanged && pendingScrollMonth != NO_MONTH) {
+      pendingScrollMonth = interval.monthOf(oldInterval != null
+          ? oldInterval.firstDay(pendingScrollMonth)
+          : Months.firstDay(pendingScrollMonth));
+    }
+
+    MonthAdapter adapter = monthAdapter;
+    if (adapter == null) {
+      invalidateFilterLoader();
+      invalidateAdapter();
+      return;
+    }
+
+    if (chronologyChanged) {
+      // Nothing computed for the old months applies to the new ones, so start over.
+      pendingScrollMonth = interval.monthOf(oldInterval.firstDay(firstVisibleMonth(oldInterval)));
+      pendingScrollOffset = 0;
+      overviewAnchor = NO_MONTH;
+      invalidateFilterLoader();
+      if (decorationLoader != null) {
+        decorationLoader.invalidate();
+      }
+      invalidateAdapter();
+      return;
+    }
+
+    if (filterLoader != null) {
+      // Only the boundary months are clamped to the interval.
+      filterLoader.invalidate(oldInterval.startMonth);
+      filterLoader.invalidate(oldInterval.endMonth);
+      filterLoader.invalidate(interval.startMonth);
+      filterLoader.invalidate(interval.endMonth);
+    }
+    adapter.setInterval(interval);
+
+    if (!options.now().equals(oldOptions.now())) {
+      adapter.setToday((int) options.now().toEpochDay());
+    }
+
+    if (!options.weekFields().equals(oldOptions.weekFields())
+        || !options.headerPattern().equals(oldOptions.headerPattern())
+        || !options.weekdayStyle().equals(oldOptions.weekdayStyle())
+        || !options.locale().equals(oldOptions.locale())) {
+      adapter.setStaticOptions(options.weekFields(), options.headerPattern(),
+          options.buildHeaderFormatter(), options.buildWeekdayNames());
+    }
+
+    if (yearAdapter != null) {
+      if (!options.locale().equals(oldOptions.locale())) {
+        yearAdapter.setMonthLabels(options.locale(), options.chronology());
+      }
+      // Years are few, so rebind them all.
+      yearAdapter.notifyDataSetChanged();
+    }
   }
 
   public void setFilter(DateFilter filter) {
@@ -59,15 +199,590 @@ public class DatePickerView extends RecyclerView {
       return;
     }
     filterDelegate = filter;
-    invalidateAdapter();
+    this.filter.setDelegate(filter);
+    invalidateFilter();
   }
 
-  public void setListener(SelectionListener listener) {
-    if (listener == listenerDelegate) {
+  /**
+   * Scroll so that the month containing {@code date} is at the top of the picker. Dates outside of
+   * the picker's interval scroll to its first or last month.
+   * <p />
+   * A smooth scroll over more than a few months first jumps to near the target, so that the months
+   * in between are not bound.
+   */
+  public void scrollToDate(LocalDate date, boolean smooth) {
+    if (date == null) {
+      throw new NullPointerException("date == null");
+    }
+    if (monthAdapter == null) {
+      // Scroll once the adapter is created.
+      pendingScrollMonth = interval != null ? interval.monthOf(date) : Months.of(date);
+      pendingScrollOffset = 0;
+      return;
+    }
+    if (yearOverview) {
+      overviewAnchor = interval.monthOf(date);
+      scrollToMonth(overviewAnchor, 0);
+      return;
+    }
+    final int position =
+        Math.max(0, Math.min(interval.position(interval.monthOf(date)), interval.months() - 1));
+
+    LinearLayoutManager layoutManager = (LinearLayoutManager) getLayoutManager();
+    removeCallbacks(smoothScrollRunnable);
+    stopScroll();
+    if (!smooth) {
+      layoutManager.scrollToPositionWithOffset(position, 0);
+      return;
+    }
+
+    final int first = layoutManager.findFirstVisibleItemPosition();
+    if (first != NO_POSITION && Math.abs(position - first) > SMOOTH_SCROLL_MAX_MONTHS) {
+      layoutManager.scrollToPositionWithOffset(position > first
+          ? position - SMOOTH_SCROLL_MAX_MONTHS
+          : position + SMOOTH_SCROLL_MAX_MONTHS, 0);
+      // Animate the rest once the jump has been laid out.
+      smoothScrollTarget = position;
+      post(smoothScrollRunnable);
+    } else {
+      smoothScrollToMonth(position);
+    }
+  }
+
+  /**
+   * Scroll so that the top of a packed month, or of its year in the year overview, is
+   * {@code offset} pixels below the top of the list.
+   */
+  private void scrollToMonth(int month, int offset) {
+    final int position = yearOverview
+        ? Math.max(0, Math.min(yearAdapter.position(month), yearAdapter.getItemCount() - 1))
+        : Math.max(0, Math.min(interval.position(month), interval.months() - 1));
+    ((LinearLayoutManager) getLayoutManager()).scrollToPositionWithOffset(position, offset);
+  }
+
+  /**
+   * Return the first visible month, or January of the first visible year in the year overview.
+   */
+  private int firstVisibleMonth() {
+    return firstVisibleMonth(interval);
+  }
+
+  private int firstVisibleMonth(Interval interval) {
+    final int first = ((LinearLayoutManager) getLayoutManager()).findFirstVisibleItemPosition();
+    if (first == NO_POSITION) {
+      return interval.startMonth;
+    }
+    return yearOverview ? yearAdapter.month(first) : interval.month(first);
+  }
+
+  private void smoothScrollToMonth(int position) {
+    final LinearLayoutManager layoutManager = (LinearLayoutManager) getLayoutManager();
+    LinearSmoothScroller scroller = new LinearSmoothScroller(getContext()) {
+      @Override protected int getVerticalSnapPreference() {
+        return SNAP_TO_START;
+      }
+
+      @Override public PointF computeScrollVectorForPosition(int targetPosition) {
+        return layoutManager.computeScrollVectorForPosition(targetPosition);
+      }
+    };
+    scroller.setTargetPosition(position);
+    layoutManager.startSmoothScroll(scroller);
+  }
+
+  /**
+   * Show a fast-scroll thumb which jumps between years when dragged. The thumb is only shown for
+   * intervals spanning at least two years.
+   */
+  public void setFastScrollEnabled(boolean enabled) {
+    if (enabled == (fastScroller != null)) {
+      return;
+    }
+    if (enabled) {
+      fastScroller = new YearFastScroller(this, fastScrollColor);
+      fastScroller.setInterval(interval);
+      if (!yearOverview) {
+        fastScroller.attach();
+      }
+    } else {
+      if (!yearOverview) {
+        fastScroller.detach();
+      }
+      fastScroller = null;
+    }
+  }
+
+  public boolean isFastScrollEnabled() {
+    return fastScroller != null;
+  }
+
+  /**
+   * Show an overview of whole years, twelve small months to a row, instead of individual months.
+   * Tapping a month in the overview shows the months again, scrolled to that month.
+   * <p />
+   * The month views are kept in the {@link RecycledViewPool} while years are shown, so switching
+   * back does not inflate them again. The fast-scroll thumb is hidden while years are shown.
+   */
+  public void setYearOverview(boolean yearOverview) {
+    if (yearOverview == this.yearOverview) {
+      return;
+    }
+    if (monthAdapter == null) {
+      // Applied once the adapter is created.
+      this.yearOverview = yearOverview;
+      return;
+    }
+
+    final int first = firstVisibleMonth();
+    final int anchor;
+    if (yearOverview) {
+      overviewAnchor = first;
+      anchor = first;
+    } else {
+      anchor = overviewAnchor != NO_MONTH && Months.year(overviewAnchor) == Months.year(first)
+          ? overviewAnchor
+          : first;
+    }
+    this.yearOverview = yearOverview;
+
+    removeCallbacks(smoothScrollRunnable);
+    stopScroll();
+    // Swapping keeps the pool, and each adapter's views have their own view type.
+    if (yearOverview) {
+      if (fastScroller != null) {
+        fastScroller.detach();
+      }
+      swapAdapter(getYearAdapter(), true);
+    } else {
+      swapAdapter(monthAdapter, true);
+      if (fastScroller != null) {
+        fastScroller.attach();
+      }
+    }
+    scrollToMonth(anchor, 0);
+  }
+
+  public boolean isYearOverview() {
+    return yearOverview;
+  }
+
+  private YearAdapter getYearAdapter() {
+    if (yearAdapter == null) {
+      yearAdapter = new YearAdapter(monthAdapter, MonthStyle.obtain(getContext()),
+          options.locale(), options.chronology(), yearCallback);
+    }
+    return yearAdapter;
+  }
+
+  /**
+   * Create month views ahead of time, one per pass of the main thread's idle loop, so that the
+   * first scroll does not stall on inflating them.
+   * <p />
+   * Views are created into this picker's {@link RecycledViewPool}. To share warm views between
+   * pickers, give them the same pool with {@link #setRecycledViewPool(RecycledViewPool)} before
+   * warming up; pooled views hold on to the context they were inflated with, so a pool should
+   * not outlive its activity.
+   *
+   * @param count the number of month views to create
+   */
+  public void warmUp(int count) {
+    if (count <= 0) {
+      return;
+    }
+    getRecycledViewPool().setMaxRecycledViews(monthViewResId,
+        Math.max(DEFAULT_MAX_RECYCLED_VIEWS, count));
+    final boolean scheduled = warmUpRemaining > 0;
+    warmUpRemaining = Math.max(warmUpRemaining, count);
+    // Otherwise, the handler is added once we are attached.
+    if (!scheduled && getWindowToken() != null) {
+      Looper.myQueue().addIdleHandler(warmUpHandler);
+    }
+  }
+
+  @Override protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    if (renderCache != null) {
+      renderCache.evictAll();
+    }
+    if (warmUpRemaining > 0) {
+      Looper.myQueue().removeIdleHandler(warmUpHandler);
+    }
+  }
+
+  @Override protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (warmUpRemaining > 0) {
+      Looper.myQueue().addIdleHandler(warmUpHandler);
+    }
+  }
+
+  /**
+   * Draw months from a cache of rendered bitmaps, so that scrolling back over a month draws it
+   * with a single bitmap blit.
+   * <p />
+   * Renders are invalidated by any change to a month's filter results, selection or highlight,
+   * its style or its size. Rendered months are large, so size the cache for a handful of months.
+   *
+   * @param maxBytes the maximum total size of cached renders, or 0 to draw months directly
+   */
+  public void setRenderCacheSize(int maxBytes) {
+    if (renderCache != null) {
+      renderCache.evictAll();
+    }
+    renderCache = maxBytes > 0 ? new MonthRenderCache(maxBytes) : null;
+
+    MonthAdapter adapter = monthAdapter;
+    if (adapter != null) {
+      adapter.setRenderCache(renderCache);
+    }
+  }
+
+  /**
+   * Draw day numbers as blits from a bitmap atlas, rasterized once per month style and display
+   * density, rather than shaping and rasterizing their text on every draw. The atlas takes a few
+   * tens of kilobytes per style.
+   */
+  public void setGlyphAtlasEnabled(boolean enabled) {
+    if (enabled == glyphAtlasEnabled) {
+      return;
+    }
+    glyphAtlasEnabled = enabled;
+    if (monthAdapter != null) {
+      monthAdapter.setGlyphAtlasEnabled(enabled);
+    }
+  }
+
+  /**
+   * Report how long the picker spends creating, binding and drawing months and evaluating the
+   * date filter. Pass {@code null} to stop reporting, which leaves no measurement overhead.
+   *
+   * @param sampleInterval report one in every {@code sampleInterval} events of each kind
+   */
+  public void setMetrics(PickerMetrics metrics, int sampleInterval) {
+    if (sampleInterval < 1) {
+      throw new IllegalArgumentException("sampleInterval < 1");
+    }
+    this.metrics = metrics != null ? new MetricsSampler(metrics, sampleInterval) : null;
+    filter.setMetrics(this.metrics);
+
+    MonthAdapter adapter = monthAdapter;
+    if (adapter != null) {
+      adapter.setMetrics(this.metrics);
+    }
+  }
+
+  /**
+   * Return the selected dates. Changes made to the selection are displayed immediately.
+   */
+  public Selection getSelection() {
+    return selection;
+  }
+
+  /**
+   * Highlight the dates from {@code start} through {@code end} inclusive, e.g. to preview a range.
+   * Pass {@code null} to clear the highlight.
+   */
+  public void setHighlightedRange(LocalDate start, LocalDate end) {
+    if (start != null && end != null && start.isAfter(end)) {
+      throw new IllegalArgumentException("start > end");
+    }
+    highlightStart = start;
+    highlightEnd = end;
+    MonthAdapter adapter = monthAdapter;
+    if (adapter != null) {
+      setAdapterHighlight(adapter);
+    }
+  }
+
+  private void setAdapterHighlight(MonthAdapter adapter) {
+    if (highlightStart != null && highlightEnd != null) {
+      adapter.setHighlight((int) highlightStart.toEpochDay(), (int) highlightEnd.toEpochDay());
+    } else {
+      adapter.clearHighlight();
+    }
+  }
+
+  /**
+   * Evaluate the date filter on an executor instead of the main thread.
+   * <p />
+   * Months are bound immediately with all days disabled, and redrawn once their filter results
+   * arrive. Results are cached; when the filter changes or {@link #invalidateFilter()} is called,
+   * months keep their current results until the new ones arrive.
+   * Pass {@code null} to evaluate the filter synchronously while binding.
+   */
+  public void setFilterExecutor(Executor executor) {
+    if (executor == filterExecutor) {
+      return;
+    }
+    filterExecutor = executor;
+    if (filterLoader != null) {
+      filterLoader.invalidate();
+    }
+    filterLoader = executor == null
+        ? null
+        : new MonthLoader<Integer>(executor, FILTER_CACHE_SIZE, filterCallback) {
+          @Override protected Integer load(int month) {
+            return filter.getEnabledDates(month);
+          }
+        };
+
+    MonthAdapter adapter = monthAdapter;
+    if (adapter != null) {
+      adapter.setFilterLoader(filterLoader);
+    }
+  }
+
+  /**
+   * Re-evaluate the date filter for all months, e.g. after the data backing it has changed.
+   */
+  public void invalidateFilter() {
+    filter.invalidate();
+    MonthAdapter adapter = monthAdapter;
+    if (filterLoader != null) {
+      // Keep showing the current results until the new ones arrive.
+      filterLoader.reload();
+      prefetch(true);
+    } else if (adapter != null) {
+      adapter.notifyItemRangeChanged(0, adapter.getItemCount(), MonthAdapter.PAYLOAD_FILTER);
+    }
+  }
+
+  private void invalidateFilterLoader() {
+    if (filterLoader != null) {
+      filterLoader.invalidate();
+    }
+  }
+
+  private void prefetch(boolean force) {
+    if ((filterLoader == null && decorationLoader == null) || interval == null || yearOverview) {
+      // Years load their months' filter results as they are bound.
       return;
     }
+    LinearLayoutManager layoutManager = (LinearLayoutManager) getLayoutManager();
+    int first = layoutManager.findFirstVisibleItemPosition();
+    int last = layoutManager.findLastVisibleItemPosition();
+    if (first == NO_POSITION || (!force && first == prefetchFirst && last == prefetchLast)) {
+      return;
+    }
+    prefetchFirst = first;
+    prefetchLast = last;
+
+    if (filterLoader != null) {
+      filterLoader.prefetch(interval.month(Math.max(0, first - FILTER_PREFETCH_MONTHS)),
+          interval.month(Math.min(interval.months() - 1, last + FILTER_PREFETCH_MONTHS)));
+    }
+    if (decorationLoader != null) {
+      decorationLoader.prefetch(interval.month(Math.max(0, first - DECORATION_PREFETCH_MONTHS)),
+          interval.month(Math.min(interval.months() - 1, last + DECORATION_PREFETCH_MONTHS)));
+    }
+  }
+
+  /**
+   * Draw decorations, such as prices or availability dots, in the cells of days. Decorations are
+   * loaded a month at a time on {@code executor}, for the visible months and a few on either side,
+   * and cached. Pass a {@code null} source to remove decorations.
+   */
+  public void setDecorationSource(DayDecorationSource source, Executor executor) {
+    if (source != null && executor == null) {
+      throw new NullPointerException("executor == null");
+    }
+    if (decorationLoader != null) {
+      decorationLoader.invalidate();
+    }
+    decorationSource = source;
+    decorationLoader = source == null
+        ? null
+        : new MonthLoader<DayDecoration[]>(executor, DECORATION_CACHE_SIZE, decorationCallback) {
+          @Override protected DayDecoration[] load(int month) {
+            DayDecoration[] decorations = loadDecorations(interval, month);
+            return decorations != null ? decorations : NO_DECORATIONS;
+          }
+        };
+
+    MonthAdapter adapter = monthAdapter;
+    if (adapter != null) {
+      adapter.setDecorationLoader(decorationLoader);
+    }
+    prefetch(true);
+  }
+
+  /**
+   * Load the decorations of a packed month of an interval's chronology. Sources are queried by ISO
+   * month, so other months are assembled from the ISO months which they overlap.
+   */
+  private DayDecoration[] loadDecorations(Interval interval, int month) {
+    if (interval.isIso()) {
+      return decorationSource.load(Months.toYearMonth(month));
+    }
+
+    final int firstDay = interval.firstDay(month);
+    final int length = interval.length(month);
+    final DayDecoration[] decorations = new DayDecoration[length];
+    for (int isoMonth = Months.ofEpochDay(firstDay), shift = Months.firstDay(isoMonth) - firstDay;
+        shift < length; shift += Months.length(isoMonth), isoMonth++) {
+      final DayDecoration[] isoDecorations = decorationSource.load(Months.toYearMonth(isoMonth));
+      if (isoDecorations == null) {
+        continue;
+      }
+      final int from = Math.max(0, -shift);
+      final int to = Math.min(isoDecorations.length, length - shift);
+      if (from < to) {
+        System.arraycopy(isoDecorations, from, decorations, from + shift, to - from);
+      }
+    }
+    return decorations;
+  }
+
+  /**
+   * Load the decorations of every month again, e.g. after the data backing them has changed.
+   */
+  public void invalidateDecorations() {
+    if (decorationLoader != null) {
+      decorationLoader.reload();
+    }
+  }
+
+  /**
+   * Load the decorations of the months from {@code start} through {@code end} again. Only the days
+   * whose decorations changed are redrawn.
+   */
+  public void invalidateDecorations(LocalDate start, LocalDate end) {
+    if (start.isAfter(end)) {
+      throw new IllegalArgumentException("start > end");
+    }
+    if (decorationLoader != null && interval != null) {
+      for (int month = interval.monthOf(start), last = interval.monthOf(end); month <= last;
+          month++) {
+        decorationLoader.reload(month);
+      }
+    }
+  }
+
+  /**
+   * Set a listener to be called when the user taps an enabled date, after the date has been
+   * applied to the {@link #getSelection() selection}.
+   */
+  public void setListener(SelectionListener listener) {
+    // Months hold a forwarding listener, so nothing needs to be rebound.
     listenerDelegate = listener;
-    invalidateAdapter();
+  }
+
+  /**
+   * Return the picker's computed filter results and decorations, to be handed to the picker which
+   * replaces this one after a configuration change with {@link #restoreCaches(Caches)}, e.g. from
+   * {@code onRetainCustomNonConfigurationInstance()}. Month layouts are kept in a process-wide
+   * cache and need not be retained.
+   * <p />
+   * The returned object refers to this picker's filter and decoration source, but not to the
+   * picker itself.
+   */
+  public Caches retainCaches() {
+    return new Caches(interval,
+        filterLoader != null ? filterDelegate : null,
+        filterLoader != null ? filterLoader.snapshot() : null,
+        decorationLoader != null ? decorationSource : null,
+        decorationLoader != null ? decorationLoader.snapshot() : null);
+  }
+
+  /**
+   * Reuse results retained from a previous picker with {@link #retainCaches()}, so that they are
+   * not computed again on restore. Filter results are only reused if this picker evaluates an
+   * equal filter on an executor, and decorations only if it has an equal decoration source;
+   * set both before the picker is first laid out.
+   */
+  public void restoreCaches(Caches caches) {
+    pendingCaches = caches;
+    if (monthAdapter != null) {
+      restorePendingCaches();
+    }
+  }
+
+  private void restorePendingCaches() {
+    final Caches caches = pendingCaches;
+    pendingCaches = null;
+    if (caches.interval != null && !caches.interval.chronology.equals(interval.chronology)) {
+      // Results are keyed by months of the retaining picker's chronology.
+      return;
+    }
+    if (filterLoader != null && caches.filterResults != null
+        && equal(filterDelegate, caches.filter)) {
+      filterLoader.restore(caches.filterResults);
+      if (caches.interval != null && interval != null) {
+        // Results for the boundary months were clamped to the interval they were computed with.
+        filterLoader.invalidate(caches.interval.startMonth);
+        filterLoader.invalidate(caches.interval.endMonth);
+        filterLoader.invalidate(interval.startMonth);
+        filterLoader.invalidate(interval.endMonth);
+      }
+    }
+    if (decorationLoader != null && caches.decorations != null
+        && equal(decorationSource, caches.decorationSource)) {
+      decorationLoader.restore(caches.decorations);
+    }
+  }
+
+  private static boolean equal(Object a, Object b) {
+    return a == null ? b == null : a.equals(b);
+  }
+
+  @Override protected Parcelable onSaveInstanceState() {
+    SavedState state = new SavedState(super.onSaveInstanceState());
+    state.options = options;
+    state.selectionMode = selection.getMode();
+    state.rangeOpen = selection.isRangeOpen();
+    state.selection = selection.encodeRuns();
+    if (highlightStart != null && highlightEnd != null) {
+      state.hasHighlight = true;
+      state.highlightStart = (int) highlightStart.toEpochDay();
+      state.highlightEnd = (int) highlightEnd.toEpochDay();
+    }
+
+    // Save the first visible month rather than its position, as the interval may change.
+    state.yearOverview = yearOverview;
+    state.scrollMonth = pendingScrollMonth;
+    state.scrollOffset = pendingScrollOffset;
+    if (monthAdapter != null) {
+      final LinearLayoutManager layoutManager = (LinearLayoutManager) getLayoutManager();
+      final int first = layoutManager.findFirstVisibleItemPosition();
+      if (first != NO_POSITION) {
+        final View child = layoutManager.findViewByPosition(first);
+        state.scrollMonth = firstVisibleMonth();
+        state.scrollOffset = child != null ? child.getTop() - getPaddingTop() : 0;
+      }
+    }
+    return state;
+  }
+
+  /**
+   * Restore the selection, highlight and scroll position. Saved options are only restored if no
+   * options have been set, so options set in {@code onCreate()} take precedence.
+   */
+  @Override protected void onRestoreInstanceState(Parcelable state) {
+    if (!(state instanceof SavedState)) {
+      super.onRestoreInstanceState(state);
+      return;
+    }
+    final SavedState ss = (SavedState) state;
+    super.onRestoreInstanceState(ss.getSuperState());
+
+    if (options == null && ss.options != null) {
+      setOptions(ss.options);
+    }
+    selection.restore(ss.selectionMode, ss.rangeOpen, ss.selection);
+    if (ss.hasHighlight) {
+      setHighlightedRange(LocalDate.ofEpochDay(ss.highlightStart),
+          LocalDate.ofEpochDay(ss.highlightEnd));
+    }
+
+    setYearOverview(ss.yearOverview);
+    if (ss.scrollMonth != NO_MONTH) {
+      if (monthAdapter != null) {
+        scrollToMonth(ss.scrollMonth, ss.scrollOffset);
+      } else {
+        pendingScrollMonth = ss.scrollMonth;
+        pendingScrollOffset = ss.scrollOffset;
+      }
+    }
   }
 
   private void invalidateAdapter() {
@@ -88,50 +803,222 @@ public class DatePickerView extends RecyclerView {
       }
       invalidateAdapter = false;
 
-      setAdapter(new MonthAdapter(getContext(), monthViewResId, interval, options.now(),
-          options.weekFields(), options.buildHeaderFormatter(), options.buildWeekdayNames(),
-          filter, listener));
+      MonthAdapter adapter = new MonthAdapter(getContext(), monthViewResId, interval,
+          (int) options.now().toEpochDay(), options.weekFields(), options.headerPattern(),
+          options.buildHeaderFormatter(), options.buildWeekdayNames(), filter, filterLoader,
+          selection, listener);
+      setAdapterHighlight(adapter);
+      adapter.setRenderCache(renderCache);
+      adapter.setGlyphAtlasEnabled(glyphAtlasEnabled);
+      adapter.setMetrics(metrics);
+      adapter.setDecorationLoader(decorationLoader);
+
+      monthAdapter = adapter;
+      // Years read through the month adapter they were created with.
+      yearAdapter = null;
+      if (pendingCaches != null) {
+        restorePendingCaches();
+      }
+      if (yearOverview) {
+        if (fastScroller != null) {
+          fastScroller.detach();
+        }
+        setAdapter(getYearAdapter());
+      } else {
+        setAdapter(adapter);
+      }
+
+      if (pendingScrollMonth != NO_MONTH) {
+        scrollToMonth(pendingScrollMonth, pendingScrollOffset);
+        pendingScrollMonth = NO_MONTH;
+      }
     }
   };
 
-  class DateFilterInternal {
-    private final boolean[] enabledDays = new boolean[31];
-
-    boolean[] getEnabledDates(YearMonth month) {
-      // By default, days are enabled.
-      Arrays.fill(enabledDays, true);
+  private final Runnable smoothScrollRunnable = new Runnable() {
+    @Override public void run() {
+      if (smoothScrollTarget != NO_POSITION && monthAdapter != null && !yearOverview) {
+        smoothScrollToMonth(Math.min(smoothScrollTarget, monthAdapter.getItemCount() - 1));
+      }
+      smoothScrollTarget = NO_POSITION;
+    }
+  };
 
-      final int length = month.lengthOfMonth();
+  private final MessageQueue.IdleHandler warmUpHandler = new MessageQueue.IdleHandler() {
+    @Override public boolean queueIdle() {
+      MonthAdapter adapter = monthAdapter;
+      if (adapter == null) {
+        // Wait for options to be set.
+        return true;
+      }
+      getRecycledViewPool().putRecycledView(
+          adapter.createViewHolder(DatePickerView.this, monthViewResId));
+      return --warmUpRemaining > 0;
+    }
+  };
 
-      // Pass through to any client filter.
-      if (filterDelegate != null) {
-        for (int i = 0; i < length; i++) {
-          enabledDays[i] = filterDelegate.isEnabled(month.atDay(i + 1));
-        }
+  private final MonthLoader.Callback<Integer> filterCallback = new MonthLoader.Callback<Integer>() {
+    @Override public void onMonthLoaded(int month, Integer result, Integer previous) {
+      MonthAdapter adapter = monthAdapter;
+      if (adapter == null || interval == null || result.equals(previous)) {
+        return;
+      }
+      int position = interval.position(month);
+      if (position >= 0 && position < adapter.getItemCount()) {
+        adapter.notifyItemChanged(position, MonthAdapter.PAYLOAD_FILTER);
+      }
+      if (yearAdapter != null) {
+        yearAdapter.notifyMonthsChanged(month, month);
       }
+    }
+  };
 
-      // In all cases, disable dates outside of our view interval.
-      if (month.equals(interval.startMonth)) {
-        int start = interval.start.getDayOfMonth() - 1;
-        for (int i = 0; i < start; i++) {
-          enabledDays[i] = false;
+  private final MonthLoader.Callback<DayDecoration[]> decorationCallback =
+      new MonthLoader.Callback<DayDecoration[]>() {
+        @Override public void onMonthLoaded(int month, DayDecoration[] result,
+            DayDecoration[] previous) {
+          MonthAdapter adapter = monthAdapter;
+          if (adapter == null || interval == null) {
+            return;
+          }
+          final int position = interval.position(month);
+          if (position < 0 || position >= adapter.getItemCount()) {
+            return;
+          }
+
+          // Redraw only the span of days whose decorations changed.
+          if (previous == null) {
+            previous = NO_DECORATIONS;
+          }
+          int firstDay = 0;
+          int lastDay = 0;
+          for (int i = 0, count = Math.max(result.length, previous.length); i < count; i++) {
+            final DayDecoration a = i < result.length ? result[i] : null;
+            final DayDecoration b = i < previous.length ? previous[i] : null;
+            if (a == null ? b != null : !a.equals(b)) {
+              if (firstDay == 0) {
+                firstDay = i + 1;
+              }
+              lastDay = i + 1;
+            }
+          }
+          if (firstDay != 0) {
+            adapter.notifyItemChanged(position,
+                new MonthAdapter.DaysChanged(MonthAdapter.DAYS_DECORATED, firstDay, lastDay));
+          }
         }
+      };
+
+  private final Selection.Observer selectionObserver = new Selection.Observer() {
+    @Override public void onSelectionChanged(int firstDay, int lastDay) {
+      MonthAdapter adapter = monthAdapter;
+      if (adapter != null) {
+        adapter.notifyDaysChanged(MonthAdapter.DAYS_ACTIVATED, firstDay, lastDay);
       }
-      if (month.equals(interval.endMonth)) {
-        int end = interval.end.getDayOfMonth();
-        for (int i = end; i < enabledDays.length; i++) {
-          enabledDays[i] = false;
-        }
+      if (yearAdapter != null) {
+        yearAdapter.notifyMonthsChanged(interval.monthOf(firstDay), interval.monthOf(lastDay));
       }
-      return Arrays.copyOf(enabledDays, length);
     }
-  }
+  };
+
+  private final YearView.Callback yearCallback = new YearView.Callback() {
+    @Override public void onMonthClicked(int month) {
+      overviewAnchor = month;
+      setYearOverview(false);
+    }
+  };
 
   private final SelectionListener listener = new SelectionListener() {
     @Override public void onDateSelected(LocalDate date) {
+      // A day was tapped in a month view.
+      selection.select(date);
       if (listenerDelegate != null) {
         listenerDelegate.onDateSelected(date);
       }
     }
   };
+
+  /**
+   * Computed results retained across a configuration change; see {@link #retainCaches()}.
+   */
+  public static final class Caches {
+    final Interval interval;
+    final DateFilter filter;
+    final SparseArray<Integer> filterResults;
+    final DayDecorationSource decorationSource;
+    final SparseArray<DayDecoration[]> decorations;
+
+    Caches(Interval interval, DateFilter filter, SparseArray<Integer> filterResults,
+        DayDecorationSource decorationSource, SparseArray<DayDecoration[]> decorations) {
+      this.interval = interval;
+      this.filter = filter;
+      this.filterResults = filterResults;
+      this.decorationSource = decorationSource;
+      this.decorations = decorations;
+    }
+  }
+
+  /**
+   * Saved picker state. Dates are written as epoch days, options as
+   * {@link Options#toByteArray}, and the selection as encoded runs (see {@link DayRuns#encode}),
+   * so even large selections take a few bytes per run.
+   */
+  static class SavedState extends AbsSavedState {
+    int scrollMonth = NO_MONTH;
+    int scrollOffset;
+    boolean yearOverview;
+    Options options;
+    Selection.Mode selectionMode;
+    boolean rangeOpen;
+    byte[] selection;
+    boolean hasHighlight;
+    int highlightStart;
+    int highlightEnd;
+
+    SavedState(Parcelable superState) {
+      super(superState);
+    }
+
+    SavedState(Parcel in, ClassLoader loader) {
+      super(in, loader);
+      scrollMonth = in.readInt();
+      scrollOffset = in.readInt();
+      yearOverview = in.readInt() != 0;
+      options = in.readInt() != 0 ? Options.fromByteArray(in.createByteArray()) : null;
+      selectionMode = Selection.Mode.values()[in.readInt()];
+      rangeOpen = in.readInt() != 0;
+      selection = in.createByteArray();
+      hasHighlight = in.readInt() != 0;
+      highlightStart = in.readInt();
+      highlightEnd = in.readInt();
+    }
+
+    @Override public void writeToParcel(Parcel out, int flags) {
+      super.writeToParcel(out, flags);
+      out.writeInt(scrollMonth);
+      out.writeInt(scrollOffset);
+      out.writeInt(yearOverview ? 1 : 0);
+      out.writeInt(options != null ? 1 : 0);
+      if (options != null) {
+        out.writeByteArray(options.toByteArray());
+      }
+      out.writeInt(selectionMode.ordinal());
+      out.writeInt(rangeOpen ? 1 : 0);
+      out.writeByteArray(selection);
+      out.writeInt(hasHighlight ? 1 : 0);
+      out.writeInt(highlightStart);
+      out.writeInt(highlightEnd);
+    }
+
+    public static final Creator<SavedState> CREATOR = ParcelableCompat.newCreator(
+        new ParcelableCompatCreatorCallbacks<SavedState>() {
+          @Override public SavedState createFromParcel(Parcel in, ClassLoader loader) {
+            return new SavedState(in, loader);
+          }
+
+          @Override public SavedState[] newArray(int size) {
+            return new SavedState[size];
+          }
+        });
+  }
 }
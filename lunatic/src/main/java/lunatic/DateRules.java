@@ -0,0 +1,328 @@
+package lunatic;
+
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+
+/**
+ * A {@link DateFilter} built from declarative rules, which evaluates a whole month with a handful
+ * of integer operations.
+ * <p />
+ * Rules are days of the week, days of the month and date ranges, combined with {@link #and},
+ * {@link #or} and {@link #not}. Combining rules of the same kind folds them into a single rule, so
+ * e.g. weekdays only, except for a list of holidays, after a lead time of two days, is:
+ * <pre>{@code
+ * DateRules rules = DateRules.daysOfWeek(MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY)
+ *     .and(DateRules.between(christmas, newYear).not())
+ *     .and(DateRules.onOrAfter(today.plusDays(2)));
+ * }</pre>
+ * Rules are immutable, and may be shared between pickers and threads.
+ */
+public abstract class DateRules implements MonthFilter {
+  private static final DateRules ALL = new DaysOfMonth(-1);
+  private static final DateRules NONE = new DaysOfMonth(0);
+
+  // Subclasses are all in this file.
+  DateRules() {
+  }
+
+  /**
+   * Return a mask of the enabled days in a packed month (see {@link Months}), where bit {@code n}
+   * represents day {@code n + 1}. Bits past the end of the month are undefined.
+   */
+  abstract int mask(int month);
+
+  /** Every date. */
+  public static DateRules all() {
+    return ALL;
+  }
+
+  /** No date. */
+  public static DateRules none() {
+    return NONE;
+  }
+
+  /**
+   * Dates falling on any of the given days of the week.
+   */
+  public static DateRules daysOfWeek(DayOfWeek... days) {
+    int mask = 0;
+    for (DayOfWeek day : days) {
+      mask |= 1 << (day.getValue() - 1);
+    }
+    return DaysOfWeek.of(mask);
+  }
+
+  /**
+   * Dates falling on any of the given days of the month, from 1 to 31. Days past the end of a
+   * month are ignored.
+   */
+  public static DateRules daysOfMonth(int... days) {
+    int mask = 0;
+    for (int day : days) {
+      if (day < 1 || day > 31) {
+        throw new IllegalArgumentException("Invalid day of month: " + day);
+      }
+      mask |= 1 << (day - 1);
+    }
+    return DaysOfMonth.of(mask);
+  }
+
+  /**
+   * Dates from {@code start} through {@code end} inclusive.
+   */
+  public static DateRules between(LocalDate start, LocalDate end) {
+    if (start.isAfter(end)) {
+      throw new IllegalArgumentException("start > end");
+    }
+    return new Range((int) start.toEpochDay(), (int) end.toEpochDay());
+  }
+
+  /**
+   * Dates from {@code start} onwards.
+   */
+  public static DateRules onOrAfter(LocalDate start) {
+    return new Range((int) start.toEpochDay(), Integer.MAX_VALUE);
+  }
+
+  /**
+   * Dates up to and including {@code end}.
+   */
+  public static DateRules onOrBefore(LocalDate end) {
+    return new Range(Integer.MIN_VALUE, (int) end.toEpochDay());
+  }
+
+  /**
+   * Dates in {@code set}, e.g. a list of holidays.
+   */
+  public static DateRules in(DateSet set) {
+    return set.isEmpty() ? NONE : new InSet(set);
+  }
+
+  /**
+   * Dates matching both this rule and {@code other}.
+   */
+  public DateRules and(DateRules other) {
+    if (this == NONE || other == ALL) {
+      return this;
+    }
+    if (this == ALL || other == NONE) {
+      return other;
+    }
+    return new And(this, other);
+  }
+
+  /**
+   * Dates matching either this rule or {@code other}.
+   */
+  public DateRules or(DateRules other) {
+    if (this == ALL || other == NONE) {
+      return this;
+    }
+    if (this == NONE || other == ALL) {
+      return other;
+    }
+    return new Or(this, other);
+  }
+
+  /**
+   * Dates not matching this rule.
+   */
+  public DateRules not() {
+    return new Not(this);
+  }
+
+  @Override public final int enabledMask(YearMonth month) {
+    return mask(Months.of(month));
+  }
+
+  @Override public final boolean isEnabled(LocalDate date) {
+    return (mask(Months.of(date)) & (1 << (date.getDayOfMonth() - 1))) != 0;
+  }
+
+  private static final class DaysOfWeek extends DateRules {
+    /** Bit {@code n} is set for ISO day of week {@code n + 1}. */
+    final int days;
+    /** {@link #days} repeated for every week a month can touch, from Monday of the first week. */
+    final long pattern;
+
+    static DateRules of(int days) {
+      days &= 0x7f;
+      if (days == 0x7f) {
+        return ALL;
+      }
+      return days == 0 ? NONE : new DaysOfWeek(days);
+    }
+
+    private DaysOfWeek(int days) {
+      this.days = days;
+      long pattern = 0;
+      for (int week = 0; week < 7; week++) {
+        pattern |= (long) days << (week * 7);
+      }
+      this.pattern = pattern;
+    }
+
+    @Override int mask(int month) {
+      return (int) (pattern >>> (Months.dayOfWeek(Months.firstDay(month)) - 1));
+    }
+
+    @Override public DateRules and(DateRules other) {
+      return other instanceof DaysOfWeek
+          ? of(days & ((DaysOfWeek) other).days)
+          : super.and(other);
+    }
+
+    @Override public DateRules or(DateRules other) {
+      return other instanceof DaysOfWeek
+          ? of(days | ((DaysOfWeek) other).days)
+          : super.or(other);
+    }
+
+    @Override public DateRules not() {
+      return of(~days);
+    }
+  }
+
+  private static final class DaysOfMonth extends DateRules {
+    final int days;
+
+    static DateRules of(int days) {
+      if (days == -1) {
+        return ALL;
+      }
+      return days == 0 ? NONE : new DaysOfMonth(days);
+    }
+
+    private DaysOfMonth(int days) {
+      this.days = days;
+    }
+
+    @Override int mask(int month) {
+      return days;
+    }
+
+    @Override public DateRules and(DateRules other) {
+      return other instanceof DaysOfMonth
+          ? of(days & ((DaysOfMonth) other).days)
+          : super.and(other);
+    }
+
+    @Override public DateRules or(DateRules other) {
+      return other instanceof DaysOfMonth
+          ? of(days | ((DaysOfMonth) other).days)
+          : super.or(other);
+    }
+
+    @Override public DateRules not() {
+      return of(~days);
+    }
+  }
+
+  private static final class Range extends DateRules {
+    final int start;
+    final int end;
+
+    Range(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override int mask(int month) {
+      // Widen, as open ranges end at the limits of int.
+      final long firstDay = Months.firstDay(month);
+      final long first = Math.max(start - firstDay + 1, 1);
+      final long last = Math.min(end - firstDay + 1, 31);
+      return first <= last ? Utils.daysMask((int) first, (int) last) : 0;
+    }
+
+    @Override public DateRules and(DateRules other) {
+      if (other instanceof Range) {
+        final Range that = (Range) other;
+        final int start = Math.max(this.start, that.start);
+        final int end = Math.min(this.end, that.end);
+        return start <= end ? new Range(start, end) : NONE;
+      }
+      return super.and(other);
+    }
+
+    @Override public DateRules or(DateRules other) {
+      if (other instanceof Range) {
+        // Merge overlapping or adjacent ranges.
+        final Range that = (Range) other;
+        if ((long) that.start <= (long) end + 1 && (long) start <= (long) that.end + 1) {
+          return new Range(Math.min(start, that.start), Math.max(end, that.end));
+        }
+      }
+      return super.or(other);
+    }
+  }
+
+  private static final class InSet extends DateRules {
+    final DateSet set;
+
+    InSet(DateSet set) {
+      this.set = set;
+    }
+
+    @Override int mask(int month) {
+      return set.mask(month);
+    }
+
+    @Override public DateRules and(DateRules other) {
+      return other instanceof InSet
+          ? in(set.intersect(((InSet) other).set))
+          : super.and(other);
+    }
+
+    @Override public DateRules or(DateRules other) {
+      return other instanceof InSet
+          ? in(set.union(((InSet) other).set))
+          : super.or(other);
+    }
+  }
+
+  private static final class And extends DateRules {
+    final DateRules a;
+    final DateRules b;
+
+    And(DateRules a, DateRules b) {
+      this.a = a;
+      this.b = b;
+    }
+
+    @Override int mask(int month) {
+      return a.mask(month) & b.mask(month);
+    }
+  }
+
+  private static final class Or extends DateRules {
+    final DateRules a;
+    final DateRules b;
+
+    Or(DateRules a, DateRules b) {
+      this.a = a;
+      this.b = b;
+    }
+
+    @Override int mask(int month) {
+      return a.mask(month) | b.mask(month);
+    }
+  }
+
+  private static final class Not extends DateRules {
+    final DateRules rules;
+
+    Not(DateRules rules) {
+      this.rules = rules;
+    }
+
+    @Override int mask(int month) {
+      return ~rules.mask(month);
+    }
+
+    @Override public DateRules not() {
+      return rules;
+    }
+  }
+}
@@ -0,0 +1,308 @@
+package lunatic;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+
+/**
+ * An immutable set of dates, stored as sorted runs of consecutive epoch days.
+ * <p />
+ * As a {@link DateFilter}, a set enables exactly its dates; to disable them instead, e.g. for a
+ * list of blackout dates, use {@code DateRules.in(set).not()}. Set operations take linear time in
+ * the number of runs, a month's membership is found with one binary search, and sets can be
+ * encoded to a few bytes per run with {@link #toByteArray()}.
+ */
+public final class DateSet implements MonthFilter {
+  private static final DateSet EMPTY = new DateSet(new int[0], 0);
+
+  private static final int UNION = 0;
+  private static final int INTERSECTION = 1;
+  private static final int DIFFERENCE = 2;
+
+  // Packed as in DayRuns.
+  final int[] runs;
+  final int count;
+
+  private DateSet(int[] runs, int count) {
+    this.runs = runs;
+    this.count = count;
+  }
+
+  public static DateSet empty() {
+    return EMPTY;
+  }
+
+  public static DateSet of(LocalDate... dates) {
+    Builder builder = new Builder();
+    for (LocalDate date : dates) {
+      builder.add(date);
+    }
+    return builder.build();
+  }
+
+  public static DateSet of(Collection<LocalDate> dates) {
+    Builder builder = new Builder();
+    for (LocalDate date : dates) {
+      builder.add(date);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Return the set of dates from {@code start} through {@code end} inclusive.
+   */
+  public static DateSet range(LocalDate start, LocalDate end) {
+    return new Builder().add(start, end).build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public boolean contains(LocalDate date) {
+    return DayRuns.contains(runs, count, (int) date.toEpochDay());
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * Return the number of dates in this set.
+   */
+  public int size() {
+    return DayRuns.days(runs, count);
+  }
+
+  /**
+   * Return the earliest date in this set.
+   *
+   * @throws IllegalStateException if this set is empty
+   */
+  public LocalDate first() {
+    if (count == 0) {
+      throw new IllegalStateException("Set is empty.");
+    }
+    return LocalDate.ofEpochDay(runs[0]);
+  }
+
+  /**
+   * Return the latest date in this set.
+   *
+   * @throws IllegalStateException if this set is empty
+   */
+  public LocalDate last() {
+    if (count == 0) {
+      throw new IllegalStateException("Set is empty.");
+    }
+    return LocalDate.ofEpochDay(runs[2 * count - 1]);
+  }
+
+  public DateSet union(DateSet other) {
+    return combine(this, other, UNION);
+  }
+
+  public DateSet intersect(DateSet other) {
+    return combine(this, other, INTERSECTION);
+  }
+
+  public DateSet minus(DateSet other) {
+    return combine(this, other, DIFFERENCE);
+  }
+
+  @Override public int enabledMask(YearMonth month) {
+    return mask(Months.of(month));
+  }
+
+  @Override public boolean isEnabled(LocalDate date) {
+    return contains(date);
+  }
+
+  /**
+   * Return a mask of the days of a packed month in this set, where bit {@code n} represents day
+   * {@code n + 1}.
+   */
+  int mask(int month) {
+    return DayRuns.mask(runs, count, Months.firstDay(month), Months.length(month));
+  }
+
+  /**
+   * Encode this set compactly, as varint gaps and lengths of its runs.
+   *
+   * @see #fromByteArray(byte[])
+   */
+  public byte[] toByteArray() {
+    return DayRuns.encode(runs, count);
+  }
+
+  /**
+   * Decode a set encoded with {@link #toByteArray()}.
+   *
+   * @throws IllegalArgumentException if {@code bytes} is not a valid encoding
+   */
+  public static DateSet fromByteArray(byte[] bytes) {
+    final int[] runs = DayRuns.decode(bytes);
+    return runs.length == 0 ? EMPTY : new DateSet(runs, runs.length / 2);
+  }
+
+  /**
+   * Combine two sets in one sweep over their run boundaries.
+   */
+  private static DateSet combine(DateSet a, DateSet b, int op) {
+    final int aEnd = 2 * a.count;
+    final int bEnd = 2 * b.count;
+    final int[] out = new int[aEnd + bEnd];
+    int n = 0;
+
+    boolean inA = false;
+    boolean inB = false;
+    boolean in = false;
+    long start = 0;
+    int i = 0;
+    int j = 0;
+    while (i < aEnd || j < bEnd) {
+      final long pa = i < aEnd ? boundary(a.runs, i) : Long.MAX_VALUE;
+      final long pb = j < bEnd ? boundary(b.runs, j) : Long.MAX_VALUE;
+      final long p = Math.min(pa, pb);
+      if (pa == p) {
+        inA = !inA;
+        i++;
+      }
+      if (pb == p) {
+        inB = !inB;
+        j++;
+      }
+
+      final boolean now;
+      switch (op) {
+        case UNION:
+          now = inA || inB;
+          break;
+        case INTERSECTION:
+          now = inA && inB;
+          break;
+        default:
+          now = inA && !inB;
+          break;
+      }
+      if (now != in) {
+        if (now) {
+          start = p;
+        } else {
+          out[2 * n] = (int) start;
+          out[2 * n + 1] = (int) (p - 1);
+          n++;
+        }
+        in = now;
+      }
+    }
+    return n == 0 ? EMPTY : new DateSet(Arrays.copyOf(out, 2 * n), n);
+  }
+
+  /**
+   * Return the day on which membership changes at boundary {@code i}: a run's first day, or the
+   * day after its last.
+   */
+  private static long boundary(int[] runs, int i) {
+    return (i & 1) == 0 ? runs[i] : runs[i] + 1L;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof DateSet)) {
+      return false;
+    }
+    DateSet that = (DateSet) o;
+    if (count != that.count) {
+      return false;
+    }
+    for (int i = 0; i < 2 * count; i++) {
+      if (runs[i] != that.runs[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override public int hashCode() {
+    int h = count;
+    for (int i = 0; i < 2 * count; i++) {
+      h = h * 31 + runs[i];
+    }
+    return h;
+  }
+
+  /**
+   * Collects dates and ranges in any order, sorting and merging them once when built.
+   */
+  public static final class Builder {
+    // Each range packed as (start << 32) | end, so that sorting orders ranges by start.
+    private long[] ranges = new long[16];
+    private int size;
+
+    Builder() {
+    }
+
+    public Builder add(LocalDate date) {
+      final int day = (int) date.toEpochDay();
+      return add(day, day);
+    }
+
+    /**
+     * Add the dates from {@code start} through {@code end} inclusive.
+     */
+    public Builder add(LocalDate start, LocalDate end) {
+      if (start.isAfter(end)) {
+        throw new IllegalArgumentException("start > end");
+      }
+      return add((int) start.toEpochDay(), (int) end.toEpochDay());
+    }
+
+    public Builder addAll(DateSet set) {
+      for (int i = 0; i < set.count; i++) {
+        add(set.runs[2 * i], set.runs[2 * i + 1]);
+      }
+      return this;
+    }
+
+    private Builder add(int start, int end) {
+      if (size == ranges.length) {
+        ranges = Arrays.copyOf(ranges, size * 2);
+      }
+      ranges[size++] = ((long) start << 32) | (end & 0xffffffffL);
+      return this;
+    }
+
+    public DateSet build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      Arrays.sort(ranges, 0, size);
+
+      final int[] runs = new int[2 * size];
+      int n = 0;
+      int start = (int) (ranges[0] >> 32);
+      int end = (int) ranges[0];
+      for (int i = 1; i < size; i++) {
+        final int nextStart = (int) (ranges[i] >> 32);
+        final int nextEnd = (int) ranges[i];
+        if (nextStart <= (long) end + 1) {
+          end = Math.max(end, nextEnd);
+        } else {
+          runs[2 * n] = start;
+          runs[2 * n + 1] = end;
+          n++;
+          start = nextStart;
+          end = nextEnd;
+        }
+      }
+      runs[2 * n] = start;
+      runs[2 * n + 1] = end;
+      n++;
+      return new DateSet(Arrays.copyOf(runs, 2 * n), n);
+    }
+  }
+}
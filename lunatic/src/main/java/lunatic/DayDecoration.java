@@ -0,0 +1,24 @@
+package lunatic;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * Extra information drawn in a day's cell, such as a price or an availability dot.
+ *
+ * @see DayDecorationSource
+ */
+@AutoValue
+public abstract class DayDecoration {
+  /** A {@link #dotColor()} for which no dot is drawn. */
+  public static final int NO_DOT = 0;
+
+  /** Text drawn below the day number, or an empty string. */
+  public abstract String label();
+
+  /** Color of a dot drawn above the day number, or {@link #NO_DOT}. */
+  public abstract int dotColor();
+
+  public static DayDecoration create(String label, int dotColor) {
+    return new AutoValue_DayDecoration(label, dotColor);
+  }
+}
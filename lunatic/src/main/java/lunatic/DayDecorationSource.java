@@ -0,0 +1,25 @@
+package lunatic;
+
+import java.util.concurrent.Executor;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+
+/**
+ * Supplies the {@link DayDecoration}s of a {@link DatePickerView}, a month at a time.
+ * <p />
+ * Months are loaded on an executor for a window around the visible months, and cached. When the
+ * underlying data changes, call {@link DatePickerView#invalidateDecorations(LocalDate, LocalDate)};
+ * the affected months are then loaded again, and only the days whose decorations changed are
+ * redrawn.
+ *
+ * @see DatePickerView#setDecorationSource(DayDecorationSource, Executor)
+ */
+public interface DayDecorationSource {
+  /**
+   * Load the decorations of a month. Called on the decoration executor.
+   *
+   * @return decorations indexed by day of month minus one, with {@code null} for undecorated days,
+   * or {@code null} if no day in the month is decorated
+   */
+  DayDecoration[] load(YearMonth month);
+}
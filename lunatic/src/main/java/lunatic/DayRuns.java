@@ -0,0 +1,246 @@
+package lunatic;
+
+import java.util.Arrays;
+
+/**
+ * A sorted list of disjoint, non-adjacent runs of epoch days.
+ * <p />
+ * Runs are packed into a single array as {@code [start0, end0, start1, end1, ...]}, with both ends
+ * inclusive. The static methods operate on any such array, so immutable structures can share the
+ * same lookups.
+ */
+final class DayRuns {
+  private static final int[] EMPTY = new int[0];
+
+  private static final int ENCODING_VERSION = 1;
+
+  int[] runs = EMPTY;
+  int count;
+
+  /**
+   * Return the index of the first run which ends on or after {@code day}, or {@code count} if
+   * there is none.
+   */
+  static int firstEndingAtOrAfter(int[] runs, int count, int day) {
+    int lo = 0;
+    int hi = count;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (runs[2 * mid + 1] < day) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  static boolean contains(int[] runs, int count, int day) {
+    final int i = firstEndingAtOrAfter(runs, count, day);
+    return i < count && runs[2 * i] <= day;
+  }
+
+  /**
+   * Return a mask of the days in {@code [firstDay, firstDay + length)} which are covered by runs,
+   * where bit {@code n} represents {@code firstDay + n}. {@code length} must not exceed 31.
+   */
+  static int mask(int[] runs, int count, int firstDay, int length) {
+    final int lastDay = firstDay + length - 1;
+    int mask = 0;
+    for (int i = firstEndingAtOrAfter(runs, count, firstDay);
+        i < count && runs[2 * i] <= lastDay; i++) {
+      mask |= Utils.daysMask(
+          Math.max(runs[2 * i], firstDay) - firstDay + 1,
+          Math.min(runs[2 * i + 1], lastDay) - firstDay + 1);
+    }
+    return mask;
+  }
+
+  /**
+   * Return the total number of days covered by runs.
+   */
+  static int days(int[] runs, int count) {
+    int days = 0;
+    for (int i = 0; i < count; i++) {
+      days += runs[2 * i + 1] - runs[2 * i] + 1;
+    }
+    return days;
+  }
+
+  /**
+   * Encode runs as a version byte and a varint count, followed by the varint gap before and length
+   * of each run. Runs of nearby days take a couple of bytes each.
+   */
+  static byte[] encode(int[] runs, int count) {
+    // At most 5 bytes per varint.
+    final byte[] out = new byte[1 + 5 + 10 * count];
+    int pos = 0;
+    out[pos++] = ENCODING_VERSION;
+    pos = writeVarint(out, pos, count);
+    for (int i = 0; i < count; i++) {
+      final int start = runs[2 * i];
+      final int end = runs[2 * i + 1];
+      if (i == 0) {
+        // Zigzag, for dates before the epoch.
+        pos = writeVarint(out, pos, (start << 1) ^ (start >> 31));
+      } else {
+        // Runs are never adjacent, so the gap is at least one day.
+        pos = writeVarint(out, pos, start - runs[2 * i - 1] - 2);
+      }
+      pos = writeVarint(out, pos, end - start);
+    }
+    return Arrays.copyOf(out, pos);
+  }
+
+  /**
+   * Decode runs encoded with {@link #encode}, returning an array of exactly twice their count.
+   *
+   * @throws IllegalArgumentException if {@code bytes} is not a valid encoding
+   */
+  static int[] decode(byte[] bytes) {
+    if (bytes.length == 0 || bytes[0] != ENCODING_VERSION) {
+      throw new IllegalArgumentException("Unknown encoding.");
+    }
+    final int[] pos = { 1 };
+    final int count = readVarint(bytes, pos);
+    if (count < 0 || count > bytes.length) {
+      throw new IllegalArgumentException("Invalid run count: " + count);
+    }
+    final int[] runs = new int[2 * count];
+    long end = 0;
+    for (int i = 0; i < count; i++) {
+      final long start;
+      if (i == 0) {
+        final int zigzag = readVarint(bytes, pos);
+        start = (zigzag >>> 1) ^ -(zigzag & 1);
+      } else {
+        start = end + 2 + (readVarint(bytes, pos) & 0xffffffffL);
+      }
+      end = start + (readVarint(bytes, pos) & 0xffffffffL);
+      if (end > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Run out of range.");
+      }
+      runs[2 * i] = (int) start;
+      runs[2 * i + 1] = (int) end;
+    }
+    if (pos[0] != bytes.length) {
+      throw new IllegalArgumentException("Trailing bytes.");
+    }
+    return runs;
+  }
+
+  private static int writeVarint(byte[] out, int pos, int value) {
+    while ((value & ~0x7f) != 0) {
+      out[pos++] = (byte) ((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out[pos++] = (byte) value;
+    return pos;
+  }
+
+  private static int readVarint(byte[] in, int[] pos) {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      if (pos[0] >= in.length) {
+        throw new IllegalArgumentException("Truncated encoding.");
+      }
+      final byte b = in[pos[0]++];
+      value |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint.");
+  }
+
+  boolean contains(int day) {
+    return contains(runs, count, day);
+  }
+
+  int mask(int firstDay, int length) {
+    return mask(runs, count, firstDay, length);
+  }
+
+  int first() {
+    return runs[0];
+  }
+
+  int last() {
+    return runs[2 * count - 1];
+  }
+
+  void clear() {
+    count = 0;
+  }
+
+  void set(int start, int end) {
+    count = 0;
+    add(start, end);
+  }
+
+  /**
+   * Add the days {@code [start, end]}, merging with any overlapping or adjacent runs.
+   */
+  void add(int start, int end) {
+    // Runs touching [start - 1, end + 1] are merged into the new run.
+    final int i = firstEndingAtOrAfter(runs, count, start - 1);
+    int j = i;
+    while (j < count && runs[2 * j] <= end + 1) {
+      j++;
+    }
+    if (i < j) {
+      start = Math.min(start, runs[2 * i]);
+      end = Math.max(end, runs[2 * j - 1]);
+    }
+    replace(i, j, 1);
+    runs[2 * i] = start;
+    runs[2 * i + 1] = end;
+  }
+
+  /**
+   * Remove the days {@code [start, end]}, splitting any run which extends past both ends.
+   */
+  void remove(int start, int end) {
+    final int i = firstEndingAtOrAfter(runs, count, start);
+    int j = i;
+    while (j < count && runs[2 * j] <= end) {
+      j++;
+    }
+    if (i == j) {
+      return;
+    }
+
+    final int headStart = runs[2 * i];
+    final int tailEnd = runs[2 * j - 1];
+    final boolean head = headStart < start;
+    final boolean tail = tailEnd > end;
+
+    replace(i, j, (head ? 1 : 0) + (tail ? 1 : 0));
+    int k = i;
+    if (head) {
+      runs[2 * k] = headStart;
+      runs[2 * k + 1] = start - 1;
+      k++;
+    }
+    if (tail) {
+      runs[2 * k] = end + 1;
+      runs[2 * k + 1] = tailEnd;
+    }
+  }
+
+  /**
+   * Replace runs {@code [from, to)} with {@code n} uninitialized runs.
+   */
+  private void replace(int from, int to, int n) {
+    final int newCount = count - (to - from) + n;
+    if (2 * newCount > runs.length) {
+      int[] grown = new int[Math.max(2 * newCount, runs.length * 2)];
+      System.arraycopy(runs, 0, grown, 0, 2 * from);
+      System.arraycopy(runs, 2 * to, grown, 2 * (from + n), 2 * (count - to));
+      runs = grown;
+    } else {
+      System.arraycopy(runs, 2 * to, runs, 2 * (from + n), 2 * (count - to));
+    }
+    count = newCount;
+  }
+}
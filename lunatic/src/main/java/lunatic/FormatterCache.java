@@ -0,0 +1,242 @@
+package lunatic;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.chrono.IsoChronology;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.format.DateTimeFormatterBuilder;
+import org.threeten.bp.format.TextStyle;
+import org.threeten.bp.temporal.ChronoField;
+import org.threeten.bp.temporal.WeekFields;
+
+/**
+ * Process-wide LRU cache of header formatters, weekday names and month names, shared by every
+ * {@link DatePickerView}.
+ * <p />
+ * Building any of them looks up locale text, which is slow the first time a locale is used.
+ * Formatters are keyed by locale, pattern and chronology, weekday names by locale, week definition
+ * and text style, and month names by locale, chronology and text style, so recreating a picker's
+ * adapter, or opening another picker with the same options, reuses them. Returned arrays are
+ * shared and must not be modified.
+ */
+final class FormatterCache {
+  static final int MAX_SIZE = 32;
+
+  private static final Map<Key, DateTimeFormatter> formatters = newCache();
+  private static final Map<Key, String[]> weekdayNames = newCache();
+  private static final Map<Key, String[]> monthNames = newCache();
+
+  // Reused for lookups so that cache hits do not allocate. Guarded by 'formatters'.
+  private static final Key probe = new Key();
+
+  private static <T> Map<Key, T> newCache() {
+    return new LinkedHashMap<Key, T>(MAX_SIZE, 0.75f, true) {
+      @Override protected boolean removeEldestEntry(Map.Entry<Key, T> eldest) {
+        return size() > MAX_SIZE;
+      }
+    };
+  }
+
+  /**
+   * Return a formatter for month headers of a chronology. For chronologies other than ISO, month
+   * text comes from {@link MonthNames}, and years are the chronology's whole year of era.
+   */
+  static DateTimeFormatter headerFormatter(Locale locale, String pattern, Chronology chronology) {
+    synchronized (formatters) {
+      probe.set(locale, pattern, chronology, null, null);
+      DateTimeFormatter formatter = formatters.get(probe);
+      if (formatter != null) {
+        return formatter;
+      }
+    }
+
+    // Build outside of the lock; a racing thread may build the same formatter, which is harmless.
+    DateTimeFormatter formatter = IsoChronology.INSTANCE.equals(chronology)
+        ? new DateTimeFormatterBuilder().appendPattern(pattern).toFormatter(locale)
+        : buildChronologyFormatter(locale, pattern, chronology);
+
+    Key key = new Key();
+    key.set(locale, pattern, chronology, null, null);
+    synchronized (formatters) {
+      formatters.put(key, formatter);
+    }
+    return formatter;
+  }
+
+  /**
+   * Return a formatter for year labels of a chronology, printing the same year of era as the
+   * chronology's month headers.
+   */
+  static DateTimeFormatter yearFormatter(Chronology chronology) {
+    // Years are printed as plain digits whatever the locale.
+    return headerFormatter(Locale.ROOT, "y", chronology);
+  }
+
+  /**
+   * Build a formatter from a pattern, replacing its month text and year fields with those of a
+   * chronology; everything else, including quoted text, is passed through to the builder.
+   */
+  private static DateTimeFormatter buildChronologyFormatter(Locale locale, String pattern,
+      Chronology chronology) {
+    final DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+    final StringBuilder literal = new StringBuilder();
+    final int length = pattern.length();
+    int i = 0;
+    while (i < length) {
+      final char c = pattern.charAt(i);
+      if (c == '\'') {
+        // Copy quoted text through its closing quote, where '' is an escaped quote.
+        int end = i + 1;
+        while (end < length && (pattern.charAt(end) != '\''
+            || end + 1 < length && pattern.charAt(end + 1) == '\'')) {
+          end += pattern.charAt(end) == '\'' ? 2 : 1;
+        }
+        end = Math.min(end + 1, length);
+        literal.append(pattern, i, end);
+        i = end;
+        continue;
+      }
+
+      int end = i + 1;
+      while (end < length && pattern.charAt(end) == c) {
+        end++;
+      }
+      final int count = end - i;
+      if ((c == 'M' || c == 'L') && count >= 3) {
+        appendLiteral(builder, literal);
+        final TextStyle style = count == 3 ? TextStyle.SHORT
+            : count == 4 ? TextStyle.FULL
+            : TextStyle.NARROW;
+        final String[] names = monthNames(locale, chronology, style);
+        final Map<Long, String> text = new HashMap<>();
+        for (int month = 0; month < 12; month++) {
+          text.put(month + 1L, names[month]);
+        }
+        builder.appendText(ChronoField.MONTH_OF_YEAR, text);
+      } else if (c == 'y' || c == 'u') {
+        // Whole years even for "yy", as the reduced printer cannot read every chronology's years.
+        appendLiteral(builder, literal);
+        builder.appendValue(c == 'y' ? ChronoField.YEAR_OF_ERA : ChronoField.YEAR);
+      } else {
+        literal.append(pattern, i, end);
+      }
+      i = end;
+    }
+    appendLiteral(builder, literal);
+    return builder.toFormatter(locale).withChronology(chronology);
+  }
+
+  private static void appendLiteral(DateTimeFormatterBuilder builder, StringBuilder pattern) {
+    if (pattern.length() > 0) {
+      builder.appendPattern(pattern.toString());
+      pattern.setLength(0);
+    }
+  }
+
+  /**
+   * Return the names of the months of a chronology's year, starting with its first month.
+   */
+  static String[] monthNames(Locale locale, Chronology chronology, TextStyle style) {
+    synchronized (formatters) {
+      probe.set(locale, null, chronology, null, style);
+      String[] names = monthNames.get(probe);
+      if (names != null) {
+        return names;
+      }
+    }
+
+    String[] names = MonthNames.of(chronology, locale, style);
+
+    Key key = new Key();
+    key.set(locale, null, chronology, null, style);
+    synchronized (formatters) {
+      monthNames.put(key, names);
+    }
+    return names;
+  }
+
+  /**
+   * Return the names of the days of the week, starting with the first day of the week.
+   */
+  static String[] weekdayNames(Locale locale, WeekFields weekFields, TextStyle style) {
+    synchronized (formatters) {
+      probe.set(locale, null, null, weekFields, style);
+      String[] names = weekdayNames.get(probe);
+      if (names != null) {
+        return names;
+      }
+    }
+
+    String[] names = new String[7];
+    for (int i = 0; i < 7; i++) {
+      // Populate week names based on the locale-specific definition of a week;
+      // i.e. {"M", "T", "W", ...} for the ISO8601 locale.
+      names[Utils.startOfWeekOffset(weekFields, DayOfWeek.of(i + 1))] =
+          DayOfWeek.of(i + 1).getDisplayName(style, locale);
+    }
+
+    Key key = new Key();
+    key.set(locale, null, null, weekFields, style);
+    synchronized (formatters) {
+      weekdayNames.put(key, names);
+    }
+    return names;
+  }
+
+  static void clear() {
+    synchronized (formatters) {
+      formatters.clear();
+      weekdayNames.clear();
+      monthNames.clear();
+    }
+  }
+
+  private static final class Key {
+    Locale locale;
+    String pattern;
+    Chronology chronology;
+    WeekFields weekFields;
+    TextStyle style;
+
+    void set(Locale locale, String pattern, Chronology chronology, WeekFields weekFields,
+        TextStyle style) {
+      this.locale = locale;
+      this.pattern = pattern;
+      this.chronology = chronology;
+      this.weekFields = weekFields;
+      this.style = style;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return locale.equals(that.locale)
+          && (pattern == null ? that.pattern == null : pattern.equals(that.pattern))
+          && (chronology == null ? that.chronology == null : chronology.equals(that.chronology))
+          && (weekFields == null ? that.weekFields == null : weekFields.equals(that.weekFields))
+          && style == that.style;
+    }
+
+    @Override public int hashCode() {
+      int h = locale.hashCode();
+      h = h * 31 + (pattern != null ? pattern.hashCode() : 0);
+      h = h * 31 + (chronology != null ? chronology.hashCode() : 0);
+      h = h * 31 + (weekFields != null ? weekFields.hashCode() : 0);
+      h = h * 31 + (style != null ? style.hashCode() : 0);
+      return h;
+    }
+  }
+
+  private FormatterCache() {
+    throw new UnsupportedOperationException("No instances!");
+  }
+}
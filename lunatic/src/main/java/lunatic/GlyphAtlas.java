@@ -0,0 +1,69 @@
+package lunatic;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.text.TextPaint;
+
+/**
+ * Day numbers 1 through 31, rasterized once into a single alpha-only bitmap, so that a day label
+ * is drawn with one bitmap blit rather than by shaping and rasterizing its text.
+ * <p />
+ * Glyphs are stored as coverage only; drawing an alpha bitmap fills it with the paint's color, so
+ * one atlas serves every day state. Atlases are created by {@link MonthStyle} for its day paint
+ * and the display density, and must only be used from the main thread.
+ */
+final class GlyphAtlas {
+  /** Transparent pixels around each glyph, so that antialiased edges are not clipped. */
+  private static final int PADDING = 1;
+
+  final float density;
+
+  private final Bitmap bitmap;
+  private final int cellWidth;
+  private final int cellHeight;
+  /** Offset of the text baseline from the top of a cell. */
+  private final int baseline;
+
+  private final Rect src = new Rect();
+  private final Rect dst = new Rect();
+
+  GlyphAtlas(TextPaint dayPaint, float density) {
+    this.density = density;
+
+    final TextPaint paint = new TextPaint(dayPaint);
+    paint.setColor(0xff000000);
+    paint.setTextAlign(Paint.Align.CENTER);
+
+    float maxWidth = 0;
+    for (char[] label : MonthView.DAY_NUMBERS) {
+      maxWidth = Math.max(maxWidth, paint.measureText(label, 0, label.length));
+    }
+    final Paint.FontMetricsInt metrics = paint.getFontMetricsInt();
+    cellWidth = (int) Math.ceil(maxWidth) + 2 * PADDING;
+    cellHeight = metrics.descent - metrics.ascent + 2 * PADDING;
+    baseline = PADDING - metrics.ascent;
+
+    bitmap = Bitmap.createBitmap(cellWidth * MonthView.DAY_NUMBERS.length, cellHeight,
+        Bitmap.Config.ALPHA_8);
+    final Canvas canvas = new Canvas(bitmap);
+    for (int i = 0; i < MonthView.DAY_NUMBERS.length; i++) {
+      final char[] label = MonthView.DAY_NUMBERS[i];
+      canvas.drawText(label, 0, label.length, i * cellWidth + cellWidth / 2f, baseline, paint);
+    }
+  }
+
+  /**
+   * Draw a day number centered on {@code x}, with its baseline at {@code y}, in the color of
+   * {@code paint}.
+   */
+  void drawDay(Canvas canvas, int dayOfMonth, float x, float y, Paint paint) {
+    src.set((dayOfMonth - 1) * cellWidth, 0, dayOfMonth * cellWidth, cellHeight);
+    // Whole pixels, so the blit is not filtered.
+    final int left = Math.round(x - cellWidth / 2f);
+    final int top = Math.round(y) - baseline;
+    dst.set(left, top, left + cellWidth, top + cellHeight);
+    canvas.drawBitmap(bitmap, src, dst, paint);
+  }
+}
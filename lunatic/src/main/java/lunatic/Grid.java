@@ -47,6 +47,14 @@ public class Grid {
         return y * ch + ch;
     }
 
+    public int cellWidth() {
+        return cw;
+    }
+
+    public int cellHeight() {
+        return ch;
+    }
+
     public int centerX(int x) {
         return x * cw + hw;
     }
@@ -55,6 +63,20 @@ public class Grid {
         return y * ch + hh;
     }
 
+    /**
+     * Returns the column containing a horizontal offset, or -1 if it is outside of the grid.
+     */
+    public int col(int x) {
+        return x < 0 || x >= width() ? -1 : x / cw;
+    }
+
+    /**
+     * Returns the row containing a vertical offset, or -1 if it is outside of the grid.
+     */
+    public int row(int y) {
+        return y < 0 || y >= height() ? -1 : y / ch;
+    }
+
     public void rect(int x0, int y0, int x1, int y1, Rect r) {
         if (x0 > x1 || y0 > y1) {
             throw new IllegalArgumentException("Nope.");
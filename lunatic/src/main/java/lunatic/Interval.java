@@ -1,35 +1,126 @@
 package lunatic;
 
 import org.threeten.bp.LocalDate;
-import org.threeten.bp.YearMonth;
-import org.threeten.bp.temporal.ChronoUnit;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.chrono.IsoChronology;
+import org.threeten.bp.jdk8.Jdk8Methods;
 
 /**
  * Interval between two abstract dates.
+ * <p />
+ * Bounds are kept as epoch days and packed months (see {@link Months}), so that position and
+ * containment queries are plain integer arithmetic. Months are those of the interval's
+ * chronology; for chronologies other than ISO, their boundaries are looked up in a precomputed
+ * {@link MonthTable}, so month arithmetic costs the same either way.
  */
 class Interval {
   final LocalDate start;
   final LocalDate end;
-  final YearMonth startMonth;
-  final YearMonth endMonth;
+  final Chronology chronology;
+
+  /** First and last days of the interval, as epoch days. */
+  final int startDay;
+  final int endDay;
+
+  /** First and last months of the interval, as packed months. */
+  final int startMonth;
+  final int endMonth;
+
+  // Null for ISO months, which are computed directly.
+  private final MonthTable table;
 
   Interval(LocalDate start, LocalDate end) {
+    this(start, end, IsoChronology.INSTANCE);
+  }
+
+  Interval(LocalDate start, LocalDate end, Chronology chronology) {
     this.start = start;
     this.end = end;
+    this.chronology = chronology;
+
+    startDay = (int) start.toEpochDay();
+    endDay = (int) end.toEpochDay();
+    if (IsoChronology.INSTANCE.equals(chronology)) {
+      table = null;
+      startMonth = Months.of(start);
+      endMonth = Months.of(end);
+    } else {
+      table = new MonthTable(chronology, startDay, endDay);
+      startMonth = table.ofEpochDay(startDay);
+      endMonth = table.ofEpochDay(endDay);
+    }
+  }
 
-    startMonth = YearMonth.from(start);
-    endMonth = YearMonth.from(end);
+  boolean isIso() {
+    return table == null;
   }
 
   public int days() {
-    return (int) ChronoUnit.DAYS.between(start, end);
+    return endDay - startDay;
   }
 
   int months() {
-    return (int) ChronoUnit.MONTHS.between(start, end) + 1;
+    return endMonth - startMonth + 1;
+  }
+
+  /**
+   * Return the index of a packed month within this interval, counting from {@link #startMonth}.
+   */
+  int position(int month) {
+    return month - startMonth;
+  }
+
+  /**
+   * Return the packed month at an index within this interval.
+   */
+  int month(int position) {
+    return startMonth + position;
+  }
+
+  /**
+   * Return the epoch day of the first day of a packed month. For chronologies other than ISO, the
+   * month must be in one of the years spanned by this interval.
+   */
+  int firstDay(int month) {
+    return table == null ? Months.firstDay(month) : table.firstDay(month);
+  }
+
+  /**
+   * Return the number of days in a packed month, under the same conditions as
+   * {@link #firstDay(int)}.
+   */
+  int length(int month) {
+    return table == null ? Months.length(month) : table.length(month);
+  }
+
+  /**
+   * Return the packed month containing an epoch day. For chronologies other than ISO, days
+   * outside of the years spanned by this interval map to the first or last of those months.
+   */
+  int monthOf(int epochDay) {
+    return table == null ? Months.ofEpochDay(epochDay) : table.ofEpochDay(epochDay);
+  }
+
+  int monthOf(LocalDate date) {
+    return table == null ? Months.of(date) : table.ofEpochDay((int) date.toEpochDay());
+  }
+
+  /**
+   * Return the number of days preceding the first day of a packed month in its first week.
+   *
+   * @param firstDayOfWeek the first day of the week; 1 (Monday) through 7 (Sunday)
+   */
+  int startOfWeekOffset(int month, int firstDayOfWeek) {
+    return table == null
+        ? Months.startOfWeekOffset(month, firstDayOfWeek)
+        : Jdk8Methods.floorMod(Months.dayOfWeek(table.firstDay(month)) - firstDayOfWeek, 7);
   }
 
   boolean contains(LocalDate date) {
-    return date.compareTo(start) >= 0 && date.compareTo(end) <= 0;
+    return contains((int) date.toEpochDay());
+  }
+
+  boolean contains(int epochDay) {
+    return epochDay >= startDay && epochDay <= endDay;
   }
 }
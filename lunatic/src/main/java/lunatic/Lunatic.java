@@ -0,0 +1,52 @@
+package lunatic;
+
+import android.os.Process;
+import java.util.Locale;
+
+/**
+ * Process-wide setup for date pickers.
+ */
+public final class Lunatic {
+  /**
+   * Load, on a background thread, what the first picker would otherwise load on the main thread:
+   * the default time zone's rules, which are read to find today's date, and the header formatter
+   * and weekday names of default {@link Options} in each of {@code locales}, or in the default
+   * locale if none are given.
+   * <p />
+   * Call this early, e.g. from {@code Application.onCreate()}, once the ThreeTen backport has been
+   * initialized. Pickers created before the warm-up finishes simply load what they need
+   * themselves.
+   */
+  public static void warmUp(Locale... locales) {
+    final Locale[] warmLocales = locales.length > 0
+        ? locales.clone()
+        : new Locale[] { Locale.getDefault() };
+    for (Locale locale : warmLocales) {
+      if (locale == null) {
+        throw new NullPointerException("locale == null");
+      }
+    }
+
+    Thread thread = new Thread(new Runnable() {
+      @Override public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        warmUpNow(warmLocales);
+      }
+    }, "lunatic-warm-up");
+    thread.start();
+  }
+
+  static void warmUpNow(Locale[] locales) {
+    for (Locale locale : locales) {
+      // Building options reads today's date, which loads the time zone rules.
+      final Options options = Options.builder(locale).build();
+      // Text is loaded as the formatter is first used, not as it is built.
+      options.buildHeaderFormatter().format(options.now());
+      options.buildWeekdayNames();
+    }
+  }
+
+  private Lunatic() {
+    throw new UnsupportedOperationException("No instances!");
+  }
+}
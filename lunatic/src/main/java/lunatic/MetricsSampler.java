@@ -0,0 +1,57 @@
+package lunatic;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Forwards one in every {@code interval} events of each kind to a {@link PickerMetrics}.
+ * <p />
+ * Callers hold a null sampler when metrics are disabled, so that the only cost is a null check.
+ * Each event is timed only after {@code sample...()} returns true.
+ */
+final class MetricsSampler {
+  private final PickerMetrics metrics;
+  private final int interval;
+
+  private int viewCount;
+  private int bindCount;
+  private int drawCount;
+  // Filters may be evaluated on an executor.
+  private final AtomicInteger filterCount = new AtomicInteger();
+
+  MetricsSampler(PickerMetrics metrics, int interval) {
+    this.metrics = metrics;
+    this.interval = interval;
+  }
+
+  boolean sampleView() {
+    return ++viewCount % interval == 0;
+  }
+
+  boolean sampleBind() {
+    return ++bindCount % interval == 0;
+  }
+
+  boolean sampleFilter() {
+    return filterCount.incrementAndGet() % interval == 0;
+  }
+
+  boolean sampleDraw() {
+    return ++drawCount % interval == 0;
+  }
+
+  void reportView(long nanos) {
+    metrics.onViewCreated(nanos);
+  }
+
+  void reportBind(long nanos, boolean modelCached) {
+    metrics.onMonthBound(nanos, modelCached);
+  }
+
+  void reportFilter(long nanos) {
+    metrics.onFilterEvaluated(nanos);
+  }
+
+  void reportDraw(long nanos, boolean renderCached) {
+    metrics.onMonthDrawn(nanos, renderCached);
+  }
+}
@@ -5,40 +5,167 @@ import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import android.view.ViewGroup;
 import java.util.List;
-import org.threeten.bp.LocalDate;
-import org.threeten.bp.YearMonth;
 import org.threeten.bp.format.DateTimeFormatter;
 import org.threeten.bp.temporal.WeekFields;
 
 class MonthAdapter extends RecyclerView.Adapter<MonthAdapter.MonthViewHolder> {
+  /** Payload for a rebind which only updates the enabled days of a month. */
+  static final Object PAYLOAD_FILTER = new Object();
+
+  static final int DAYS_ACTIVATED = 0;
+  static final int DAYS_HIGHLIGHTED = 1;
+  static final int DAYS_DECORATED = 2;
+
   private final int monthViewResId;
   private final String monthViewLayoutName;
 
-  private final Interval interval;
-  private final LocalDate now;
-  private final WeekFields weekFields;
-  private final DateTimeFormatter headerFormatter;
-  private final String[] weekdayNames;
-  private final DatePickerView.DateFilterInternal filter;
+  private final MonthBinder binder;
+  private WeekFields weekFields;
+  private String headerPattern;
+  private DateTimeFormatter headerFormatter;
+  private String[] weekdayNames;
+  private MonthLoader<Integer> filterLoader;
+  private MonthLoader<DayDecoration[]> decorationLoader;
   private final SelectionListener listener;
+  private MonthRenderCache renderCache;
+  private MetricsSampler metrics;
+  private boolean glyphAtlasEnabled;
 
-  MonthAdapter(Context context, int monthViewResId, Interval interval, LocalDate now,
-      WeekFields weekFields, DateTimeFormatter headerFormatter, String[] weekdayNames,
-      DatePickerView.DateFilterInternal filter, SelectionListener listener) {
+  MonthAdapter(Context context, int monthViewResId, Interval interval, int today,
+      WeekFields weekFields, String headerPattern, DateTimeFormatter headerFormatter,
+      String[] weekdayNames, DateFilterInternal filter, MonthLoader<Integer> filterLoader,
+      Selection selection, SelectionListener listener) {
 
     this.monthViewResId = monthViewResId;
-    this.interval = interval;
-    this.now = now;
+    this.binder = new MonthBinder(interval, today, filter, selection);
     this.weekFields = weekFields;
+    this.headerPattern = headerPattern;
     this.headerFormatter = headerFormatter;
     this.weekdayNames = weekdayNames;
-    this.filter = filter;
+    this.filterLoader = filterLoader;
     this.listener = listener;
 
     monthViewLayoutName = context.getResources().getResourceName(this.monthViewResId);
+
+    // Months keep their views across interval changes.
+    setHasStableIds(true);
+  }
+
+  /**
+   * Change the displayed interval, notifying only the months which were added or removed, and
+   * the months whose enabled days were clamped to the old or new interval.
+   */
+  void setInterval(Interval interval) {
+    final Interval old = binder.getInterval();
+    binder.setInterval(interval);
+
+    if (interval.startMonth > old.endMonth || interval.endMonth < old.startMonth) {
+      notifyDataSetChanged();
+      return;
+    }
+
+    // Adjust the head of the list; RecyclerView keeps the visible months anchored in place.
+    final int startShift = old.position(interval.startMonth);
+    if (startShift > 0) {
+      notifyItemRangeRemoved(0, startShift);
+    } else if (startShift < 0) {
+      notifyItemRangeInserted(0, -startShift);
+    }
+
+    // Then the tail, now that positions are relative to the new start.
+    final int oldLast = interval.position(old.endMonth);
+    final int newLast = interval.months() - 1;
+    if (newLast > oldLast) {
+      notifyItemRangeInserted(oldLast + 1, newLast - oldLast);
+    } else if (newLast < oldLast) {
+      notifyItemRangeRemoved(newLast + 1, oldLast - newLast);
+    }
+
+    notifyEnabledDaysChanged(old.startMonth);
+    notifyEnabledDaysChanged(old.endMonth);
+    notifyEnabledDaysChanged(interval.startMonth);
+    notifyEnabledDaysChanged(interval.endMonth);
+  }
+
+  Interval getInterval() {
+    return binder.getInterval();
+  }
+
+  int getToday() {
+    return binder.getToday();
+  }
+
+  WeekFields getWeekFields() {
+    return weekFields;
+  }
+
+  void setToday(int today) {
+    final Interval interval = binder.getInterval();
+    final int old = binder.getToday();
+    binder.setToday(today);
+    notifyMonthChanged(interval.monthOf(old));
+    notifyMonthChanged(interval.monthOf(today));
+  }
+
+  void setStaticOptions(WeekFields weekFields, String headerPattern,
+      DateTimeFormatter headerFormatter, String[] weekdayNames) {
+    this.weekFields = weekFields;
+    this.headerPattern = headerPattern;
+    this.headerFormatter = headerFormatter;
+    this.weekdayNames = weekdayNames;
+    notifyItemRangeChanged(0, getItemCount());
+  }
+
+  void setRenderCache(MonthRenderCache renderCache) {
+    this.renderCache = renderCache;
+    notifyItemRangeChanged(0, getItemCount());
+  }
+
+  void setGlyphAtlasEnabled(boolean enabled) {
+    glyphAtlasEnabled = enabled;
+    notifyItemRangeChanged(0, getItemCount());
+  }
+
+  void setMetrics(MetricsSampler metrics) {
+    this.metrics = metrics;
+    notifyItemRangeChanged(0, getItemCount());
+  }
+
+  void setDecorationLoader(MonthLoader<DayDecoration[]> decorationLoader) {
+    this.decorationLoader = decorationLoader;
+    notifyItemRangeChanged(0, getItemCount(), new DaysChanged(DAYS_DECORATED, 1, 31));
+  }
+
+  void setFilterLoader(MonthLoader<Integer> filterLoader) {
+    this.filterLoader = filterLoader;
+    notifyItemRangeChanged(0, getItemCount(), PAYLOAD_FILTER);
+  }
+
+  private void notifyEnabledDaysChanged(int month) {
+    final int position = binder.getInterval().position(month);
+    if (position >= 0 && position < getItemCount()) {
+      notifyItemChanged(position, PAYLOAD_FILTER);
+    }
+  }
+
+  private void notifyMonthChanged(int month) {
+    final int position = binder.getInterval().position(month);
+    if (position >= 0 && position < getItemCount()) {
+      notifyItemChanged(position);
+    }
   }
 
   @Override public MonthViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+    if (metrics != null && metrics.sampleView()) {
+      final long start = System.nanoTime();
+      final MonthViewHolder holder = createMonthViewHolder(parent);
+      metrics.reportView(System.nanoTime() - start);
+      return holder;
+    }
+    return createMonthViewHolder(parent);
+  }
+
+  private MonthViewHolder createMonthViewHolder(ViewGroup parent) {
     View view = View.inflate(parent.getContext(), monthViewResId, null);
     if (!(view instanceof MonthView)) {
       throw new IllegalStateException(
@@ -46,29 +173,143 @@ class MonthAdapter extends RecyclerView.Adapter<MonthAdapter.MonthViewHolder> {
               monthViewLayoutName));
     }
 
-    MonthView monthView = (MonthView) view;
-    monthView.setStaticOptions(weekFields, headerFormatter, weekdayNames, listener);
-
-    return new MonthViewHolder(monthView);
+    return new MonthViewHolder((MonthView) view);
   }
 
   @Override public void onBindViewHolder(MonthViewHolder holder, int position) {
-    final YearMonth yearMonth = getMonth(position);
-    holder.bindMonth(yearMonth, now, filter.getEnabledDates(yearMonth));
+    if (metrics != null && metrics.sampleBind()) {
+      final int misses = MonthModelCache.missCount();
+      final long start = System.nanoTime();
+      bindMonth(holder, position);
+      metrics.reportBind(System.nanoTime() - start, MonthModelCache.missCount() == misses);
+    } else {
+      bindMonth(holder, position);
+    }
+  }
+
+  private void bindMonth(MonthViewHolder holder, int position) {
+    final Interval interval = binder.getInterval();
+    final int month = interval.month(position);
+    holder.monthView.setStaticOptions(weekFields, headerPattern, headerFormatter, weekdayNames,
+        listener);
+    holder.monthView.setRenderCache(renderCache);
+    holder.monthView.setMetrics(metrics);
+    holder.monthView.setGlyphAtlasEnabled(glyphAtlasEnabled);
+    holder.monthView.setRangeEdges(binder.getRangeEdges(month));
+    holder.bindMonth(month, interval, binder.getToday(), getEnabledDays(month),
+        binder.getActivatedDays(month), binder.getHighlightedDays(month), getDecorations(month));
   }
 
   @Override
   public void onBindViewHolder(MonthViewHolder holder, int position, List<Object> payloads) {
-    // TODO bind highlight changes via payload
-    super.onBindViewHolder(holder, position, payloads);
+    if (payloads.isEmpty()) {
+      onBindViewHolder(holder, position);
+      return;
+    }
+
+    final int month = binder.getInterval().month(position);
+    for (int i = 0, size = payloads.size(); i < size; i++) {
+      final Object payload = payloads.get(i);
+      if (payload == PAYLOAD_FILTER) {
+        holder.monthView.setEnabledDays(getEnabledDays(month));
+      } else if (payload instanceof DaysChanged) {
+        final DaysChanged change = (DaysChanged) payload;
+        switch (change.kind) {
+          case DAYS_ACTIVATED:
+            holder.monthView.setActivatedDays(binder.getActivatedDays(month),
+                change.firstDay, change.lastDay);
+            holder.monthView.setRangeEdges(binder.getRangeEdges(month));
+            break;
+          case DAYS_HIGHLIGHTED:
+            holder.monthView.setHighlightedDays(binder.getHighlightedDays(month),
+                change.firstDay, change.lastDay);
+            holder.monthView.setRangeEdges(binder.getRangeEdges(month));
+            break;
+          case DAYS_DECORATED:
+            holder.monthView.setDecorations(getDecorations(month),
+                change.firstDay, change.lastDay);
+            break;
+        }
+      } else {
+        onBindViewHolder(holder, position);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Highlight the epoch days {@code [start, end]}.
+   */
+  void setHighlight(int start, int end) {
+    clearHighlight();
+    binder.setHighlight(start, end);
+    notifyDaysChanged(DAYS_HIGHLIGHTED, start, end);
+  }
+
+  void clearHighlight() {
+    if (binder.hasHighlight()) {
+      binder.clearHighlight();
+      notifyDaysChanged(DAYS_HIGHLIGHTED, binder.getHighlightStart(), binder.getHighlightEnd());
+    }
+  }
+
+  /**
+   * Rebind the epoch days in {@code [start, end]} with a {@link DaysChanged} payload for each
+   * affected month.
+   */
+  void notifyDaysChanged(int kind, int start, int end) {
+    if (kind != DAYS_DECORATED) {
+      // Range highlights join adjacent days, so their neighbors change shape too.
+      start--;
+      end++;
+    }
+    final Interval interval = binder.getInterval();
+    start = Math.max(start, interval.startDay);
+    end = Math.min(end, interval.endDay);
+    if (start > end) {
+      return;
+    }
+
+    final int startMonth = interval.monthOf(start);
+    final int endMonth = interval.monthOf(end);
+    final int first = interval.position(startMonth);
+    final int last = interval.position(endMonth);
+    for (int position = first; position <= last; position++) {
+      notifyItemChanged(position, new DaysChanged(kind,
+          position == first ? start - interval.firstDay(startMonth) + 1 : 1,
+          position == last ? end - interval.firstDay(endMonth) + 1 : 31));
+    }
+  }
+
+  @Override public int getItemViewType(int position) {
+    // Views from different month layouts must not be mixed in a shared pool.
+    return monthViewResId;
+  }
+
+  @Override public long getItemId(int position) {
+    return binder.getInterval().month(position);
   }
 
   @Override public int getItemCount() {
-    return interval.months();
+    return binder.getInterval().months();
   }
 
-  private YearMonth getMonth(int position) {
-    return interval.startMonth.plusMonths(position);
+  int getEnabledDays(int month) {
+    if (filterLoader == null) {
+      return binder.getEnabledDays(month);
+    }
+    // Until the filter has been evaluated, show every day as disabled.
+    Integer enabledDays = filterLoader.get(month);
+    return enabledDays != null ? enabledDays : 0;
+  }
+
+  private DayDecoration[] getDecorations(int month) {
+    // Until a month's decorations are loaded, it is drawn without them.
+    return decorationLoader != null ? decorationLoader.get(month) : null;
+  }
+
+  int getActivatedDays(int month) {
+    return binder.getActivatedDays(month);
   }
 
   static class MonthViewHolder extends RecyclerView.ViewHolder {
@@ -79,8 +320,27 @@ class MonthAdapter extends RecyclerView.Adapter<MonthAdapter.MonthViewHolder> {
       this.monthView = monthView;
     }
 
-    void bindMonth(final YearMonth month, final LocalDate now, final boolean[] enabledDays) {
-      monthView.bind(month, now, enabledDays);
+    void bindMonth(final int month, final Interval interval, final int now,
+        final int enabledDays, final int activatedDays, final int highlightedDays,
+        final DayDecoration[] decorations) {
+      monthView.bind(month, interval, now, enabledDays, activatedDays, highlightedDays,
+          decorations);
+    }
+  }
+
+  /**
+   * Payload for a rebind which only updates one kind of day state, for days {@code firstDay}
+   * through {@code lastDay} of a month.
+   */
+  static final class DaysChanged {
+    final int kind;
+    final int firstDay;
+    final int lastDay;
+
+    DaysChanged(int kind, int firstDay, int lastDay) {
+      this.kind = kind;
+      this.firstDay = firstDay;
+      this.lastDay = lastDay;
     }
   }
 }
@@ -0,0 +1,119 @@
+package lunatic;
+
+/**
+ * Computes the day state which {@link MonthAdapter} binds to each month: which days are enabled,
+ * activated and highlighted, and whether ranges continue into the neighboring months.
+ * <p />
+ * This holds no Android types, so that the bind path can be measured on a desktop JVM.
+ */
+final class MonthBinder {
+  // Whether the days just outside of a month are activated or highlighted, so that range
+  // highlights continue across the month boundary.
+  static final int RANGE_ACTIVATED_BEFORE = 1;
+  static final int RANGE_ACTIVATED_AFTER = 1 << 1;
+  static final int RANGE_HIGHLIGHTED_BEFORE = 1 << 2;
+  static final int RANGE_HIGHLIGHTED_AFTER = 1 << 3;
+
+  private final DateFilterInternal filter;
+  private final Selection selection;
+
+  private Interval interval;
+  /** Today, as an epoch day. */
+  private int today;
+
+  private boolean hasHighlight;
+  private int highlightStart;
+  private int highlightEnd;
+
+  MonthBinder(Interval interval, int today, DateFilterInternal filter, Selection selection) {
+    this.interval = interval;
+    this.today = today;
+    this.filter = filter;
+    this.selection = selection;
+  }
+
+  Interval getInterval() {
+    return interval;
+  }
+
+  void setInterval(Interval interval) {
+    this.interval = interval;
+  }
+
+  int getToday() {
+    return today;
+  }
+
+  void setToday(int today) {
+    this.today = today;
+  }
+
+  boolean hasHighlight() {
+    return hasHighlight;
+  }
+
+  int getHighlightStart() {
+    return highlightStart;
+  }
+
+  int getHighlightEnd() {
+    return highlightEnd;
+  }
+
+  /**
+   * Highlight the epoch days {@code [start, end]}.
+   */
+  void setHighlight(int start, int end) {
+    hasHighlight = true;
+    highlightStart = start;
+    highlightEnd = end;
+  }
+
+  void clearHighlight() {
+    hasHighlight = false;
+  }
+
+  /**
+   * Return the days of a month enabled by the filter, evaluating it on this thread.
+   */
+  int getEnabledDays(int month) {
+    return filter.getEnabledDates(month);
+  }
+
+  int getActivatedDays(int month) {
+    return selection.mask(interval.firstDay(month), interval.length(month));
+  }
+
+  int getHighlightedDays(int month) {
+    if (!hasHighlight) {
+      return 0;
+    }
+    final int firstDay = interval.firstDay(month);
+    final int first = Math.max(highlightStart - firstDay + 1, 1);
+    final int last = Math.min(highlightEnd - firstDay + 1, interval.length(month));
+    return first <= last ? Utils.daysMask(first, last) : 0;
+  }
+
+  /**
+   * Return whether the days adjacent to a month are activated or highlighted, as
+   * {@code RANGE_*} flags.
+   */
+  int getRangeEdges(int month) {
+    final int before = interval.firstDay(month) - 1;
+    final int after = before + interval.length(month) + 1;
+    int edges = 0;
+    if (selection.contains(before)) {
+      edges |= RANGE_ACTIVATED_BEFORE;
+    }
+    if (selection.contains(after)) {
+      edges |= RANGE_ACTIVATED_AFTER;
+    }
+    if (hasHighlight && highlightStart <= before && highlightEnd >= before) {
+      edges |= RANGE_HIGHLIGHTED_BEFORE;
+    }
+    if (hasHighlight && highlightStart <= after && highlightEnd >= after) {
+      edges |= RANGE_HIGHLIGHTED_AFTER;
+    }
+    return edges;
+  }
+}
@@ -0,0 +1,18 @@
+package lunatic;
+
+import org.threeten.bp.YearMonth;
+
+/**
+ * A {@link DateFilter} which can evaluate a whole month at once.
+ * <p />
+ * Implement this when enabled dates can be computed more cheaply in bulk than one
+ * {@link org.threeten.bp.LocalDate} at a time. Plain {@link DateFilter}s are adapted
+ * automatically.
+ */
+public interface MonthFilter extends DateFilter {
+  /**
+   * Return a mask of the enabled days in a month. Bit {@code n} is set if day-of-month
+   * {@code n + 1} is enabled; bits past the end of the month are ignored.
+   */
+  int enabledMask(YearMonth month);
+}
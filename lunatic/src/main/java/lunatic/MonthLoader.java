@@ -0,0 +1,236 @@
+package lunatic;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads per-month data on a background {@link Executor}, delivering results on the main thread.
+ * <p />
+ * Months are identified by their packed value (see {@link Months}). Results are cached until
+ * {@link #invalidate()} is called; when the cache is full, the month furthest from the most
+ * recently requested one is evicted. Requests for months which leave the prefetch window are
+ * cancelled, and results from before an invalidation are dropped. A load which throws, or which
+ * the executor rejects, is tried again when its month is next requested. All methods must be
+ * called from the main thread.
+ */
+abstract class MonthLoader<T> {
+  interface Callback<T> {
+    /**
+     * @param previous the result this replaces if the month was reloaded, or {@code null}
+     */
+    void onMonthLoaded(int month, T result, T previous);
+  }
+
+  private final Executor executor;
+  private final Callback<T> callback;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final int maxSize;
+
+  private final SparseArray<T> cache = new SparseArray<>();
+  private final SparseArray<Request> pending = new SparseArray<>();
+
+  private int generation;
+  private int lastRequested;
+
+  MonthLoader(Executor executor, int maxSize, Callback<T> callback) {
+    this.executor = executor;
+    this.maxSize = maxSize;
+    this.callback = callback;
+  }
+
+  /**
+   * Called on the executor to load data for a packed month.
+   */
+  protected abstract T load(int month);
+
+  /**
+   * Return the cached result for a month, or {@code null} if it is not yet loaded, in which case
+   * a load is scheduled.
+   */
+  T get(int month) {
+    lastRequested = month;
+    T result = cache.get(month);
+    if (result == null) {
+      request(month);
+    }
+    return result;
+  }
+
+  /**
+   * Load all months in {@code [first, last]}, cancelling pending loads outside of that window.
+   */
+  void prefetch(int first, int last) {
+    for (int i = pending.size() - 1; i >= 0; i--) {
+      final int month = pending.keyAt(i);
+      if (month < first || month > last) {
+        pending.valueAt(i).cancelled = true;
+        pending.removeAt(i);
+      }
+    }
+
+    lastRequested = first + (last - first) / 2;
+    for (int month = first; month <= last; month++) {
+      if (cache.indexOfKey(month) < 0) {
+        request(month);
+      }
+    }
+  }
+
+  /**
+   * Drop the cached result for a single month, cancelling any pending load for it.
+   */
+  void invalidate(int month) {
+    cache.remove(month);
+    Request request = pending.get(month);
+    if (request != null) {
+      request.cancelled = true;
+      pending.remove(month);
+    }
+  }
+
+  /**
+   * Load a cached month again, keeping the cached result until the new one arrives. Months which
+   * are not cached are loaded when next requested anyway.
+   */
+  void reload(int month) {
+    if (cache.indexOfKey(month) < 0) {
+      return;
+    }
+    Request request = pending.get(month);
+    if (request != null) {
+      request.cancelled = true;
+      pending.remove(month);
+    }
+    request(month);
+  }
+
+  /**
+   * Load every cached or pending month again, keeping the cached results until the new ones
+   * arrive. Pending loads are restarted, as they may have read the data being reloaded.
+   */
+  void reload() {
+    final int[] restart = new int[pending.size()];
+    for (int i = 0; i < restart.length; i++) {
+      restart[i] = pending.keyAt(i);
+      pending.valueAt(i).cancelled = true;
+    }
+    pending.clear();
+
+    for (int i = 0; i < cache.size(); i++) {
+      request(cache.keyAt(i));
+    }
+    for (int month : restart) {
+      request(month);
+    }
+  }
+
+  /**
+   * Drop all cached results and cancel pending loads.
+   */
+  void invalidate() {
+    generation++;
+    cache.clear();
+    for (int i = 0; i < pending.size(); i++) {
+      pending.valueAt(i).cancelled = true;
+    }
+    pending.clear();
+  }
+
+  /**
+   * Return a copy of the cached results, e.g. to keep them across a configuration change.
+   */
+  SparseArray<T> snapshot() {
+    return cache.clone();
+  }
+
+  /**
+   * Cache results from {@link #snapshot()}, without replacing any which are already cached.
+   */
+  void restore(SparseArray<T> results) {
+    for (int i = 0; i < results.size() && cache.size() < maxSize; i++) {
+      final int month = results.keyAt(i);
+      if (cache.indexOfKey(month) < 0) {
+        cache.put(month, results.valueAt(i));
+      }
+    }
+  }
+
+  private void request(int month) {
+    if (pending.indexOfKey(month) >= 0) {
+      return;
+    }
+    Request request = new Request(month, generation);
+    // Only once the executor accepts the load, so that a rejected month is requested again.
+    executor.execute(request);
+    pending.put(month, request);
+  }
+
+  private void deliver(Request request, T result) {
+    if (request.cancelled || request.generation != generation) {
+      return;
+    }
+    pending.remove(request.month);
+    final T previous = cache.get(request.month);
+    cache.put(request.month, result);
+    if (cache.size() > maxSize) {
+      evictFurthest();
+    }
+    callback.onMonthLoaded(request.month, result, previous);
+  }
+
+  /** Forget a load which threw, so that the month is loaded again when next requested. */
+  private void fail(Request request) {
+    if (request.cancelled || request.generation != generation) {
+      return;
+    }
+    pending.remove(request.month);
+  }
+
+  private void evictFurthest() {
+    int furthest = 0;
+    int maxDistance = -1;
+    for (int i = 0; i < cache.size(); i++) {
+      final int distance = Math.abs(cache.keyAt(i) - lastRequested);
+      if (distance > maxDistance) {
+        maxDistance = distance;
+        furthest = i;
+      }
+    }
+    cache.removeAt(furthest);
+  }
+
+  private final class Request implements Runnable {
+    final int month;
+    final int generation;
+    volatile boolean cancelled;
+
+    Request(int month, int generation) {
+      this.month = month;
+      this.generation = generation;
+    }
+
+    @Override public void run() {
+      if (cancelled) {
+        return;
+      }
+      final T result;
+      try {
+        result = load(month);
+      } catch (RuntimeException e) {
+        handler.post(new Runnable() {
+          @Override public void run() {
+            fail(Request.this);
+          }
+        });
+        throw e;
+      }
+      handler.post(new Runnable() {
+        @Override public void run() {
+          deliver(Request.this, result);
+        }
+      });
+    }
+  }
+}
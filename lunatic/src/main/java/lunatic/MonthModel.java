@@ -0,0 +1,64 @@
+package lunatic;
+
+import org.threeten.bp.format.DateTimeFormatter;
+
+/**
+ * Precomputed, immutable layout of a single month as displayed by a {@link MonthView}.
+ */
+final class MonthModel {
+  /** The month, packed as described by {@link Months} in its chronology. */
+  final int month;
+
+  /** Epoch day of the first day of the month. */
+  final int firstDay;
+
+  /** Number of empty cells preceding the first day of the month. */
+  final int offset;
+  final int rowCount;
+  final int length;
+
+  /** Day of month representing today, or -1 if today does not fall in this month. */
+  final int today;
+
+  final String label;
+
+  MonthModel(int month, int firstDay, int offset, int length, int today, String label) {
+    this.month = month;
+    this.firstDay = firstDay;
+    this.offset = offset;
+    this.length = length;
+    this.rowCount = (offset + length + 6) / 7;
+    this.today = today;
+    this.label = label;
+  }
+
+  /**
+   * Compute the model of a packed month of an interval's chronology.
+   */
+  static MonthModel compute(int month, Interval interval, int today, int firstDayOfWeek,
+      DateTimeFormatter headerFormatter, boolean allCaps) {
+    final int firstDay = interval.firstDay(month);
+    final int length = interval.length(month);
+    String label = headerFormatter.format(interval.isIso()
+        ? Months.toYearMonth(month)
+        : interval.chronology.dateEpochDay(firstDay));
+    if (allCaps) {
+      label = label.toUpperCase();
+    }
+    return new MonthModel(month,
+        firstDay,
+        interval.startOfWeekOffset(month, firstDayOfWeek),
+        length,
+        todayInMonth(firstDay, length, today),
+        label);
+  }
+
+  /**
+   * Return the day of month of {@code today}, an epoch day, or -1 if it is not in the month of
+   * {@code length} days starting at the epoch day {@code firstDay}.
+   */
+  static int todayInMonth(int firstDay, int length, int today) {
+    final int day = today - firstDay + 1;
+    return day >= 1 && day <= length ? day : -1;
+  }
+}
@@ -0,0 +1,128 @@
+package lunatic;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.temporal.WeekFields;
+
+/**
+ * Process-wide LRU cache of {@link MonthModel}s, shared by every {@link DatePickerView}.
+ * <p />
+ * Models are keyed by month, chronology, week definition, header pattern and locale, so scrolling
+ * back over a month or opening a second picker with the same options does not recompute anything.
+ */
+final class MonthModelCache {
+  static final int MAX_SIZE = 256;
+
+  private static final Map<Key, MonthModel> cache =
+      new LinkedHashMap<Key, MonthModel>(MAX_SIZE, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Key, MonthModel> eldest) {
+          return size() > MAX_SIZE;
+        }
+      };
+
+  // Reused for lookups so that cache hits do not allocate. Guarded by 'cache'.
+  private static final Key probe = new Key();
+  private static int missCount;
+
+  /**
+   * Return the model of a packed month of an interval's chronology, given today's date as an
+   * epoch day.
+   */
+  static MonthModel get(int month, Interval interval, int now, WeekFields weekFields,
+      String headerPattern, DateTimeFormatter headerFormatter, boolean allCaps) {
+    final int today =
+        MonthModel.todayInMonth(interval.firstDay(month), interval.length(month), now);
+    final Locale locale = headerFormatter.getLocale();
+
+    synchronized (cache) {
+      probe.set(month, interval.chronology, today, weekFields, headerPattern, locale, allCaps);
+      MonthModel model = cache.get(probe);
+      if (model != null) {
+        return model;
+      }
+      missCount++;
+    }
+
+    // Compute outside of the lock; a racing thread may compute the same model, which is harmless.
+    MonthModel model = MonthModel.compute(month, interval, now,
+        weekFields.getFirstDayOfWeek().getValue(), headerFormatter, allCaps);
+
+    Key key = new Key();
+    key.set(month, interval.chronology, today, weekFields, headerPattern, locale, allCaps);
+    synchronized (cache) {
+      cache.put(key, model);
+    }
+    return model;
+  }
+
+  /**
+   * Return the number of times {@link #get} has computed a model.
+   */
+  static int missCount() {
+    synchronized (cache) {
+      return missCount;
+    }
+  }
+
+  static void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  private static final class Key {
+    int month;
+    Chronology chronology;
+    int today;
+    WeekFields weekFields;
+    String headerPattern;
+    Locale locale;
+    boolean allCaps;
+
+    void set(int month, Chronology chronology, int today, WeekFields weekFields,
+        String headerPattern, Locale locale, boolean allCaps) {
+      this.month = month;
+      this.chronology = chronology;
+      this.today = today;
+      this.weekFields = weekFields;
+      this.headerPattern = headerPattern;
+      this.locale = locale;
+      this.allCaps = allCaps;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return month == that.month
+          && today == that.today
+          && allCaps == that.allCaps
+          && chronology.equals(that.chronology)
+          && weekFields.equals(that.weekFields)
+          && headerPattern.equals(that.headerPattern)
+          && locale.equals(that.locale);
+    }
+
+    @Override public int hashCode() {
+      int h = month;
+      h = h * 31 + chronology.hashCode();
+      h = h * 31 + today;
+      h = h * 31 + weekFields.hashCode();
+      h = h * 31 + headerPattern.hashCode();
+      h = h * 31 + locale.hashCode();
+      h = h * 31 + (allCaps ? 1 : 0);
+      return h;
+    }
+  }
+
+  private MonthModelCache() {
+    throw new UnsupportedOperationException("No instances!");
+  }
+}
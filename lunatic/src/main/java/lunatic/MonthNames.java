@@ -0,0 +1,62 @@
+package lunatic;
+
+import java.util.Locale;
+import org.threeten.bp.Month;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.chrono.HijrahChronology;
+import org.threeten.bp.format.TextStyle;
+
+/**
+ * Names of the months of a chronology's year.
+ * <p />
+ * ThreeTen formats month text from the ISO month names whatever the chronology, which is right for
+ * the Japanese, Minguo and Thai Buddhist calendars, whose months are the Gregorian months, but not
+ * for the Hijrah calendar, whose names are bundled here.
+ */
+final class MonthNames {
+  private static final String[] HIJRAH_FULL = {
+      "Muharram", "Safar", "Rabiʻ I", "Rabiʻ II", "Jumada I", "Jumada II", "Rajab", "Shaʻban",
+      "Ramadan", "Shawwal", "Dhuʻl-Qiʻdah", "Dhuʻl-Hijjah"
+  };
+  private static final String[] HIJRAH_SHORT = {
+      "Muh.", "Saf.", "Rab. I", "Rab. II", "Jum. I", "Jum. II", "Raj.", "Sha.", "Ram.", "Shaw.",
+      "Dhuʻl-Q.", "Dhuʻl-H."
+  };
+  // Arabic month names are not abbreviated.
+  private static final String[] HIJRAH_ARABIC = {
+      "محرم", "صفر", "ربيع الأول", "ربيع الآخر", "جمادى الأولى", "جمادى الآخرة", "رجب", "شعبان",
+      "رمضان", "شوال", "ذو القعدة", "ذو الحجة"
+  };
+
+  /**
+   * Return the names of the twelve months of a chronology's year, in the given style.
+   */
+  static String[] of(Chronology chronology, Locale locale, TextStyle style) {
+    final String[] names = new String[12];
+    if (HijrahChronology.INSTANCE.equals(chronology)) {
+      final String[] source = "ar".equals(locale.getLanguage()) ? HIJRAH_ARABIC
+          : isShort(style) ? HIJRAH_SHORT
+          : HIJRAH_FULL;
+      for (int i = 0; i < 12; i++) {
+        names[i] = isNarrow(style) ? source[i].substring(0, 1) : source[i];
+      }
+    } else {
+      for (int i = 0; i < 12; i++) {
+        names[i] = Month.of(i + 1).getDisplayName(style, locale);
+      }
+    }
+    return names;
+  }
+
+  private static boolean isShort(TextStyle style) {
+    return style == TextStyle.SHORT || style == TextStyle.SHORT_STANDALONE;
+  }
+
+  private static boolean isNarrow(TextStyle style) {
+    return style == TextStyle.NARROW || style == TextStyle.NARROW_STANDALONE;
+  }
+
+  private MonthNames() {
+    throw new UnsupportedOperationException("No instances!");
+  }
+}
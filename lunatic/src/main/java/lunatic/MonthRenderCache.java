@@ -0,0 +1,197 @@
+package lunatic;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.LruCache;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of fully rendered months, bounded by the size of the cached bitmaps in bytes.
+ * <p />
+ * Renders are keyed by everything that affects how a month is drawn: its model, its day state
+ * masks and decorations, its style and labels, and the view size. Any change to those, such as a
+ * new filter result or selection, simply misses the cache, and stale renders age out. Must only be
+ * used from the main thread.
+ * <p />
+ * Views {@link #hold} the render they draw until they draw another one or are detached, as their
+ * display lists may still reference it. An evicted render is only erased and reused for another
+ * month once no view holds it.
+ */
+final class MonthRenderCache {
+  private final LruCache<Key, Bitmap> bitmaps;
+  private final Key probe = new Key();
+  private final Canvas canvas = new Canvas();
+
+  // The most recently evicted bitmap which no view holds, reused for the next render if it has the
+  // right size.
+  private Bitmap spare;
+  private Bitmap rendering;
+
+  // Number of views holding each render, and evicted renders waiting for their holders to release
+  // them.
+  private final Map<Bitmap, Integer> holds = new IdentityHashMap<>();
+  private final Map<Bitmap, Boolean> evictedHeld = new IdentityHashMap<>();
+
+  MonthRenderCache(int maxBytes) {
+    bitmaps = new LruCache<Key, Bitmap>(maxBytes) {
+      @Override protected int sizeOf(Key key, Bitmap value) {
+        return value.getRowBytes() * value.getHeight();
+      }
+
+      @Override protected void entryRemoved(boolean evicted, Key key, Bitmap oldValue,
+          Bitmap newValue) {
+        if (!evicted) {
+          return;
+        }
+        if (oldValue == rendering || holds.containsKey(oldValue)) {
+          evictedHeld.put(oldValue, Boolean.TRUE);
+        } else {
+          spare = oldValue;
+        }
+      }
+    };
+  }
+
+  /**
+   * Return the render for a month in the given state, or {@code null} if it is not cached.
+   */
+  Bitmap get(MonthModel model, int enabledDays, int activatedDays, int highlightedDays,
+      int rangeEdges, DayDecoration[] decorations, MonthStyle style, String[] weekdayLabels,
+      int width, int height) {
+    probe.set(model, enabledDays, activatedDays, highlightedDays, rangeEdges, decorations, style,
+        weekdayLabels, width, height);
+    return bitmaps.get(probe);
+  }
+
+  /**
+   * Start rendering the month last passed to {@link #get}, which missed the cache. The returned
+   * canvas must be drawn into before calling {@link #endRender()}.
+   */
+  Canvas beginRender() {
+    Bitmap bitmap = spare;
+    spare = null;
+    if (bitmap != null && bitmap.getWidth() == probe.width && bitmap.getHeight() == probe.height) {
+      bitmap.eraseColor(0);
+    } else {
+      bitmap = Bitmap.createBitmap(probe.width, probe.height, Bitmap.Config.ARGB_8888);
+    }
+    rendering = bitmap;
+    canvas.setBitmap(bitmap);
+    return canvas;
+  }
+
+  /**
+   * Finish rendering, caching and returning the render. The caller must {@link #hold} it before
+   * the next render begins.
+   */
+  Bitmap endRender() {
+    final Bitmap bitmap = rendering;
+    canvas.setBitmap(null);
+
+    Key key = new Key();
+    key.set(probe.model, probe.enabledDays, probe.activatedDays, probe.highlightedDays,
+        probe.rangeEdges, probe.decorations, probe.style, probe.weekdayLabels, probe.width,
+        probe.height);
+    // Still rendering, so that the render is not made spare if it is evicted right away.
+    bitmaps.put(key, bitmap);
+    rendering = null;
+    return bitmap;
+  }
+
+  /**
+   * Keep a render from being reused while a view draws it.
+   */
+  void hold(Bitmap render) {
+    final Integer count = holds.get(render);
+    holds.put(render, count == null ? 1 : count + 1);
+  }
+
+  /**
+   * Release a render held with {@link #hold}, allowing it to be reused once evicted.
+   */
+  void release(Bitmap render) {
+    final Integer count = holds.get(render);
+    if (count == null) {
+      return;
+    }
+    if (count > 1) {
+      holds.put(render, count - 1);
+      return;
+    }
+    holds.remove(render);
+    if (evictedHeld.remove(render) != null) {
+      spare = render;
+    }
+  }
+
+  void evictAll() {
+    bitmaps.evictAll();
+    spare = null;
+    // Held renders are dropped once released, rather than kept as spares.
+    evictedHeld.clear();
+  }
+
+  private static final class Key {
+    MonthModel model;
+    int enabledDays;
+    int activatedDays;
+    int highlightedDays;
+    int rangeEdges;
+    DayDecoration[] decorations;
+    MonthStyle style;
+    String[] weekdayLabels;
+    int width;
+    int height;
+
+    void set(MonthModel model, int enabledDays, int activatedDays, int highlightedDays,
+        int rangeEdges, DayDecoration[] decorations, MonthStyle style, String[] weekdayLabels,
+        int width, int height) {
+      this.model = model;
+      this.enabledDays = enabledDays;
+      this.activatedDays = activatedDays;
+      this.highlightedDays = highlightedDays;
+      this.rangeEdges = rangeEdges;
+      this.decorations = decorations;
+      this.style = style;
+      this.weekdayLabels = weekdayLabels;
+      this.width = width;
+      this.height = height;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      // Models, decorations, styles and labels are shared instances, so identity is enough.
+      Key that = (Key) o;
+      return model == that.model
+          && enabledDays == that.enabledDays
+          && activatedDays == that.activatedDays
+          && highlightedDays == that.highlightedDays
+          && rangeEdges == that.rangeEdges
+          && decorations == that.decorations
+          && style == that.style
+          && weekdayLabels == that.weekdayLabels
+          && width == that.width
+          && height == that.height;
+    }
+
+    @Override public int hashCode() {
+      int h = System.identityHashCode(model);
+      h = h * 31 + enabledDays;
+      h = h * 31 + activatedDays;
+      h = h * 31 + highlightedDays;
+      h = h * 31 + rangeEdges;
+      h = h * 31 + System.identityHashCode(decorations);
+      h = h * 31 + System.identityHashCode(style);
+      h = h * 31 + System.identityHashCode(weekdayLabels);
+      h = h * 31 + width;
+      h = h * 31 + height;
+      return h;
+    }
+  }
+}
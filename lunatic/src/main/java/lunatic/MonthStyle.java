@@ -0,0 +1,452 @@
+package lunatic;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.util.LongSparseArray;
+import codes.tad.lunatic.R;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The resolved appearance of a {@link MonthView}: paints, colors, dimensions and text offsets.
+ * <p />
+ * Resolving a style means reading several styled attribute sets and creating typefaces, so styles
+ * are resolved once per theme and shared by reference between month views. Styles must only be
+ * used from the main thread; the day paint's color is changed while drawing.
+ */
+public final class MonthStyle {
+
+  // These must remain in ascending order!
+  @SuppressLint("InlinedApi") private static final int[] TEXT_APPEARANCE_ATTRS = {
+      android.R.attr.textSize, android.R.attr.typeface, android.R.attr.textStyle,
+      android.R.attr.textColor, android.R.attr.textAllCaps, android.R.attr.fontFamily,
+      android.R.attr.elegantTextHeight, android.R.attr.letterSpacing,
+      android.R.attr.fontFeatureSettings
+  };
+
+  private static final int TEXT_SIZE = 0;
+  private static final int TYPEFACE = 1;
+  private static final int TEXT_STYLE = 2;
+  private static final int TEXT_COLOR = 3;
+  private static final int TEXT_ALL_CAPS = 4;
+  private static final int FONT_FAMILY = 5;
+  private static final int ELEGANT_TEXT_HEIGHT = 6;
+  private static final int LETTER_SPACING = 7;
+  private static final int FONT_FEATURE_SETTINGS = 8;
+
+  private static final int SANS = 1;
+  private static final int SERIF = 2;
+  private static final int MONOSPACE = 3;
+
+  static final int DAY_PAINT = 0;
+  static final int MONTH_PAINT = 1;
+  static final int WEEKDAY_PAINT = 2;
+  static final int DECORATION_PAINT = 3;
+
+  private static final float DECORATION_DOT_RADIUS_DP = 2;
+
+  private static final int[] STATE_ENABLED = new int[] { android.R.attr.state_enabled };
+  private static final int[] STATE_DISABLED = new int[] { -android.R.attr.state_enabled };
+  private static final int[] STATE_ENABLED_ACTIVATED = new int[] {
+      android.R.attr.state_enabled,
+      android.R.attr.state_activated
+  };
+  private static final int[] STATE_ENABLED_PRESSED = new int[] {
+      android.R.attr.state_enabled,
+      android.R.attr.state_pressed
+  };
+
+  private static final int SELECTED_HIGHLIGHT_ALPHA = 0xB0;
+
+  /** Styles resolved without per-view attributes, by theme and then by style resources. */
+  private static final Map<Resources.Theme, LongSparseArray<MonthStyle>> cache =
+      new WeakHashMap<>();
+
+  final TextPaint dayPaint;
+  final TextPaint monthPaint;
+  final TextPaint weekdayPaint;
+  final TextPaint decorationPaint;
+
+  final Paint daySelectorPaint;
+  final Paint dayHighlightPaint;
+  final Paint dayHighlightSelectorPaint;
+  final Paint gridPaint;
+  /** Colored per dot while drawing. */
+  final Paint decorationDotPaint;
+  final float decorationDotRadius;
+
+  final boolean[] textAllCaps;
+  final float[] textOffsetY;
+
+  final Grid dayGrid;
+  final int weekdayHeight;
+  final int monthHeight;
+  final boolean drawGrid;
+
+  /** Day text colors, indexed by {@code MonthView.DAY_STATE_*}. */
+  final int[] dayColors;
+
+  private Typeface derivedTypeface;
+  private MonthStyle derived;
+
+  private GlyphAtlas dayGlyphAtlas;
+
+  /**
+   * Resolve the default month style of a context's theme.
+   */
+  public static MonthStyle obtain(Context context) {
+    return obtain(context, null, R.attr.lunatic_monthViewStyle);
+  }
+
+  /**
+   * Resolve a month style, as a {@link MonthView} inflated with these attributes would.
+   * <p />
+   * If {@code attrs} sets no month view attributes directly, the result is shared with every
+   * other view using the same theme and style.
+   */
+  public static MonthStyle obtain(Context context, AttributeSet attrs, int defStyleAttr) {
+    if (hasMonthViewAttributes(attrs)) {
+      return new MonthStyle(context, attrs, defStyleAttr);
+    }
+
+    final Resources.Theme theme = context.getTheme();
+    final int styleRes = attrs != null ? attrs.getStyleAttribute() : 0;
+    final long key = ((long) defStyleAttr << 32) | (styleRes & 0xffffffffL);
+
+    LongSparseArray<MonthStyle> styles = cache.get(theme);
+    if (styles == null) {
+      styles = new LongSparseArray<>();
+      cache.put(theme, styles);
+    }
+    MonthStyle style = styles.get(key);
+    if (style == null) {
+      style = new MonthStyle(context, attrs, defStyleAttr);
+      styles.put(key, style);
+    }
+    return style;
+  }
+
+  private static boolean hasMonthViewAttributes(AttributeSet attrs) {
+    if (attrs == null) {
+      return false;
+    }
+    final int[] styleable = R.styleable.lunatic_MonthView;
+    for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+      final int attr = attrs.getAttributeNameResource(i);
+      for (int s : styleable) {
+        if (s == attr) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private MonthStyle(Context context, AttributeSet attrs, int defStyleAttr) {
+    dayPaint = new TextPaint();
+    monthPaint = new TextPaint();
+    weekdayPaint = new TextPaint();
+    decorationPaint = new TextPaint();
+    daySelectorPaint = new Paint();
+    dayHighlightPaint = new Paint();
+    dayHighlightSelectorPaint = new Paint();
+    gridPaint = new Paint();
+    decorationDotPaint = new Paint();
+    decorationDotRadius =
+        DECORATION_DOT_RADIUS_DP * context.getResources().getDisplayMetrics().density;
+    textAllCaps = new boolean[4];
+    textOffsetY = new float[4];
+    dayColors = new int[MonthView.DAY_STATE_COUNT];
+
+    TypedArray a = context.getTheme().obtainStyledAttributes(
+        attrs, R.styleable.lunatic_MonthView, defStyleAttr, R.style.lunatic_MonthView);
+
+    int dayWidth = a.getDimensionPixelSize(R.styleable.lunatic_MonthView_lunatic_dayWidth, 0);
+    int dayHeight = a.getDimensionPixelSize(R.styleable.lunatic_MonthView_lunatic_dayHeight, 0);
+    weekdayHeight = a.getDimensionPixelSize(R.styleable.lunatic_MonthView_lunatic_weekDayHeight, 0);
+    monthHeight = a.getDimensionPixelSize(R.styleable.lunatic_MonthView_lunatic_monthHeight, 0);
+
+    drawGrid = a.getBoolean(R.styleable.lunatic_MonthView_lunatic_drawGrid, false);
+    gridPaint.setColor(a.getColor(R.styleable.lunatic_MonthView_lunatic_gridColor, 0xffcccccc));
+    gridPaint.setStrokeWidth(a.getDimension(R.styleable.lunatic_MonthView_lunatic_gridStroke, 1f));
+
+    final ColorStateList daySelectorColor =
+        a.getColorStateList(R.styleable.lunatic_MonthView_lunatic_daySelectorColor);
+    final int activatedColor;
+    if (daySelectorColor == null) {
+      activatedColor = a.getColor(R.styleable.lunatic_MonthView_lunatic_daySelectorColor, 0);
+    } else {
+      activatedColor = daySelectorColor.getColorForState(STATE_ENABLED_ACTIVATED, 0);
+    }
+    daySelectorPaint.setColor(activatedColor);
+    dayHighlightSelectorPaint.setColor(activatedColor);
+    dayHighlightSelectorPaint.setAlpha(SELECTED_HIGHLIGHT_ALPHA);
+
+    final ColorStateList dayHighlightColor =
+        a.getColorStateList(R.styleable.lunatic_MonthView_lunatic_dayHighlightColor);
+    final int pressedColor;
+    if (dayHighlightColor == null) {
+      pressedColor = a.getColor(R.styleable.lunatic_MonthView_lunatic_dayHighlightColor, 0);
+    } else {
+      pressedColor = dayHighlightColor.getColorForState(STATE_ENABLED_PRESSED, 0);
+    }
+    dayHighlightPaint.setColor(pressedColor);
+
+    int textAppearanceDayRes =
+        a.getResourceId(R.styleable.lunatic_MonthView_lunatic_dateTextAppearance, 0);
+    int textAppearanceWeekdayRes =
+        a.getResourceId(R.styleable.lunatic_MonthView_lunatic_weekDayTextAppearance, 0);
+    int textAppearanceMonthRes =
+        a.getResourceId(R.styleable.lunatic_MonthView_lunatic_monthTextAppearance, 0);
+    int textAppearanceDecorationRes =
+        a.getResourceId(R.styleable.lunatic_MonthView_lunatic_decorationTextAppearance, 0);
+
+    a.recycle();
+
+    dayGrid = new Grid(6, 7, dayWidth, dayHeight);
+
+    ColorStateList dayTextColor = setPaintTextAppearance(context, DAY_PAINT, dayPaint,
+        textAppearanceDayRes, textAllCaps, textOffsetY);
+    setPaintTextAppearance(context, MONTH_PAINT, monthPaint, textAppearanceMonthRes, textAllCaps,
+        textOffsetY);
+    setPaintTextAppearance(context, WEEKDAY_PAINT, weekdayPaint, textAppearanceWeekdayRes,
+        textAllCaps, textOffsetY);
+    setPaintTextAppearance(context, DECORATION_PAINT, decorationPaint,
+        textAppearanceDecorationRes, textAllCaps, textOffsetY);
+
+    setDefaultPaintFlags(monthPaint);
+    setDefaultPaintFlags(weekdayPaint);
+    setDefaultPaintFlags(dayPaint);
+    setDefaultPaintFlags(decorationPaint);
+    setDefaultPaintFlags(decorationDotPaint);
+    setDefaultPaintFlags(daySelectorPaint);
+    setDefaultPaintFlags(dayHighlightPaint);
+    setDefaultPaintFlags(dayHighlightSelectorPaint);
+
+    resolveDayColors(dayTextColor);
+  }
+
+  private MonthStyle(MonthStyle source, Typeface tf) {
+    dayPaint = new TextPaint(source.dayPaint);
+    monthPaint = new TextPaint(source.monthPaint);
+    weekdayPaint = new TextPaint(source.weekdayPaint);
+    decorationPaint = new TextPaint(source.decorationPaint);
+    daySelectorPaint = source.daySelectorPaint;
+    dayHighlightPaint = source.dayHighlightPaint;
+    dayHighlightSelectorPaint = source.dayHighlightSelectorPaint;
+    gridPaint = source.gridPaint;
+    decorationDotPaint = source.decorationDotPaint;
+    decorationDotRadius = source.decorationDotRadius;
+    textAllCaps = source.textAllCaps;
+    textOffsetY = new float[4];
+    dayGrid = source.dayGrid;
+    weekdayHeight = source.weekdayHeight;
+    monthHeight = source.monthHeight;
+    drawGrid = source.drawGrid;
+    dayColors = source.dayColors;
+
+    dayPaint.setTypeface(tf);
+    weekdayPaint.setTypeface(tf);
+    monthPaint.setTypeface(tf);
+    decorationPaint.setTypeface(tf);
+    textOffsetY[DAY_PAINT] = textOffsetY(dayPaint);
+    textOffsetY[MONTH_PAINT] = textOffsetY(monthPaint);
+    textOffsetY[WEEKDAY_PAINT] = textOffsetY(weekdayPaint);
+    textOffsetY[DECORATION_PAINT] = textOffsetY(decorationPaint);
+  }
+
+  /**
+   * Return a copy of this style with all text drawn in the given typeface.
+   */
+  public MonthStyle withTypeface(Typeface tf) {
+    if (dayPaint.getTypeface() == tf && monthPaint.getTypeface() == tf
+        && weekdayPaint.getTypeface() == tf && decorationPaint.getTypeface() == tf) {
+      return this;
+    }
+    // Views sharing this style usually switch to the same typeface, so they share the copy too.
+    if (derived == null || derivedTypeface != tf) {
+      derived = new MonthStyle(this, tf);
+      derivedTypeface = tf;
+    }
+    return derived;
+  }
+
+  /**
+   * Return the day numbers of this style rasterized for a display density, creating them on first
+   * use. Styles derived with another typeface have their own atlas.
+   */
+  GlyphAtlas dayGlyphAtlas(float density) {
+    if (dayGlyphAtlas == null || dayGlyphAtlas.density != density) {
+      dayGlyphAtlas = new GlyphAtlas(dayPaint, density);
+    }
+    return dayGlyphAtlas;
+  }
+
+  /**
+   * Apply a text appearance to a paint, storing its caps setting and text offset at
+   * {@code paintIndex}, and return its text color, if it has one.
+   */
+  static ColorStateList setPaintTextAppearance(Context context, int paintIndex, TextPaint paint,
+      int textAppearanceResId, boolean[] textAllCaps, float[] textOffsetY) {
+    if (textAppearanceResId <= 0) {
+      return null;
+    }
+
+    TypedArray a =
+        context.getTheme().obtainStyledAttributes(textAppearanceResId, TEXT_APPEARANCE_ATTRS);
+
+    int textSize = 15;
+    int typefaceIndex = -1;
+    int styleIndex = -1;
+    ColorStateList textColor = null;
+    boolean allCaps = false;
+    String fontFamily = null;
+    boolean elegant = false;
+    float letterSpacing = 0;
+    String fontFeatureSettings = null;
+
+    for (int i = 0; i < a.getIndexCount(); i++) {
+      int attr = a.getIndex(i);
+      switch (attr) {
+        case TEXT_SIZE:
+          textSize = a.getDimensionPixelSize(attr, textSize);
+          break;
+        case TYPEFACE:
+          typefaceIndex = a.getInt(attr, typefaceIndex);
+          break;
+        case TEXT_STYLE:
+          styleIndex = a.getInt(attr, styleIndex);
+          break;
+        case TEXT_COLOR:
+          textColor = a.getColorStateList(attr);
+          break;
+        case TEXT_ALL_CAPS:
+          allCaps = a.getBoolean(attr, allCaps);
+          break;
+        case FONT_FAMILY:
+          fontFamily = a.getString(attr);
+          break;
+        case ELEGANT_TEXT_HEIGHT:
+          elegant = a.getBoolean(attr, elegant);
+          break;
+        case LETTER_SPACING:
+          letterSpacing = a.getFloat(attr, letterSpacing);
+          break;
+        case FONT_FEATURE_SETTINGS:
+          fontFeatureSettings = a.getString(attr);
+          break;
+      }
+    }
+
+    a.recycle();
+
+    paint.setTextSize(textSize);
+
+    if (textColor != null) {
+      paint.setColor(textColor.getDefaultColor());
+    }
+    textAllCaps[paintIndex] = allCaps;
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+      paint.setElegantTextHeight(elegant);
+      paint.setLetterSpacing(letterSpacing);
+      paint.setFontFeatureSettings(fontFeatureSettings);
+    }
+
+    setPaintTypefaceFromAttrs(paint, fontFamily, typefaceIndex, styleIndex);
+
+    paint.setTextAlign(Paint.Align.CENTER);
+    textOffsetY[paintIndex] = textOffsetY(paint);
+    return textColor;
+  }
+
+  private static float textOffsetY(Paint paint) {
+    return -((paint.ascent() - paint.descent()) / 2);
+  }
+
+  private static void setPaintTypefaceFromAttrs(Paint paint, String familyName, int typefaceIndex,
+      int styleIndex) {
+    Typeface tf = null;
+    if (familyName != null) {
+      tf = Typeface.create(familyName, styleIndex);
+      if (tf != null) {
+        paint.setTypeface(tf);
+        return;
+      }
+    }
+    switch (typefaceIndex) {
+      case SANS:
+        tf = Typeface.SANS_SERIF;
+        break;
+
+      case SERIF:
+        tf = Typeface.SERIF;
+        break;
+
+      case MONOSPACE:
+        tf = Typeface.MONOSPACE;
+        break;
+    }
+
+    setPaintTypeface(paint, tf, styleIndex);
+  }
+
+  static void setPaintTypeface(Paint paint, Typeface tf, int style) {
+    if (style > 0) {
+      if (tf == null) {
+        tf = Typeface.defaultFromStyle(style);
+      } else {
+        tf = Typeface.create(tf, style);
+      }
+
+      paint.setTypeface(tf);
+
+      // Fake styles.
+      int typefaceStyle = tf != null ? tf.getStyle() : 0;
+      int need = style & ~typefaceStyle;
+      paint.setFakeBoldText((need & Typeface.BOLD) != 0);
+      paint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
+    } else {
+      paint.setFakeBoldText(false);
+      paint.setTextSkewX(0);
+      paint.setTypeface(tf);
+    }
+  }
+
+  static void setDefaultPaintFlags(Paint paint) {
+    paint.setAntiAlias(true);
+    paint.setStyle(Paint.Style.FILL);
+  }
+
+  /**
+   * Resolve the day text color for each day state up front, so drawing does not need to query
+   * {@link ColorStateList}s.
+   */
+  private void resolveDayColors(ColorStateList dayTextColor) {
+    final int defaultColor = dayPaint.getColor();
+    if (dayTextColor == null) {
+      dayColors[MonthView.DAY_STATE_ENABLED] = defaultColor;
+      dayColors[MonthView.DAY_STATE_DISABLED] = defaultColor;
+      dayColors[MonthView.DAY_STATE_HIGHLIGHTED] = defaultColor;
+      dayColors[MonthView.DAY_STATE_ACTIVATED] = defaultColor;
+    } else {
+      dayColors[MonthView.DAY_STATE_ENABLED] =
+          dayTextColor.getColorForState(STATE_ENABLED, defaultColor);
+      dayColors[MonthView.DAY_STATE_DISABLED] =
+          dayTextColor.getColorForState(STATE_DISABLED, defaultColor);
+      dayColors[MonthView.DAY_STATE_HIGHLIGHTED] =
+          dayTextColor.getColorForState(STATE_ENABLED_PRESSED, defaultColor);
+      dayColors[MonthView.DAY_STATE_ACTIVATED] =
+          dayTextColor.getColorForState(STATE_ENABLED_ACTIVATED, defaultColor);
+    }
+    dayColors[MonthView.DAY_STATE_TODAY] = daySelectorPaint.getColor();
+  }
+}
@@ -0,0 +1,76 @@
+package lunatic;
+
+import java.util.Arrays;
+import org.threeten.bp.chrono.ChronoLocalDate;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.temporal.ChronoField;
+import org.threeten.bp.temporal.ChronoUnit;
+
+/**
+ * Month boundaries of a non-ISO {@link Chronology}, precomputed as epoch days for every month of
+ * the years spanning an interval.
+ * <p />
+ * Months are packed as {@code prolepticYear * 12 + (monthOfYear - 1)} in the chronology, as
+ * {@link Months} packs ISO months, so that the rest of the picker works the same for any
+ * chronology. Converting dates between chronologies can be expensive, so it is only done here,
+ * once per month; lookups are then plain array accesses.
+ */
+final class MonthTable {
+  /** First packed month of the table, which is always the first month of a year. */
+  final int startMonth;
+  /** Last packed month of the table, which is always the last month of a year. */
+  final int endMonth;
+
+  /** Epoch day of the first day of each month, followed by the day after the last month. */
+  private final int[] firstDays;
+
+  MonthTable(Chronology chronology, int startDay, int endDay) {
+    if (chronology.range(ChronoField.MONTH_OF_YEAR).getMaximum() != 12) {
+      throw new IllegalArgumentException("Chronology must have 12 months: " + chronology.getId());
+    }
+
+    // Whole years, so that a year overview can lay out every month of the interval's years.
+    final int startYear = chronology.dateEpochDay(startDay).get(ChronoField.YEAR);
+    final int endYear = chronology.dateEpochDay(endDay).get(ChronoField.YEAR);
+    startMonth = Months.pack(startYear, 1);
+    endMonth = Months.pack(endYear, 12);
+
+    ChronoLocalDate date = chronology.date(startYear, 1, 1);
+    firstDays = new int[endMonth - startMonth + 2];
+    for (int i = 0; i < firstDays.length; i++) {
+      firstDays[i] = (int) date.toEpochDay();
+      date = date.plus(1, ChronoUnit.MONTHS);
+    }
+  }
+
+  /**
+   * Return the epoch day of the first day of a packed month. Months outside of the table are
+   * clamped to it, so that a background load which races a change of chronology, and whose result
+   * is dropped anyway, cannot fail.
+   */
+  int firstDay(int month) {
+    return firstDays[index(month)];
+  }
+
+  int length(int month) {
+    final int i = index(month);
+    return firstDays[i + 1] - firstDays[i];
+  }
+
+  private int index(int month) {
+    return Math.max(0, Math.min(month - startMonth, firstDays.length - 2));
+  }
+
+  /**
+   * Return the packed month containing an epoch day. Days outside of the table map to its first
+   * or last month.
+   */
+  int ofEpochDay(int epochDay) {
+    int i = Arrays.binarySearch(firstDays, epochDay);
+    if (i < 0) {
+      // The insertion point is the month after the one containing the day.
+      i = -i - 2;
+    }
+    return startMonth + Math.max(0, Math.min(i, firstDays.length - 2));
+  }
+}
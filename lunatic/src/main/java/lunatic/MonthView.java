@@ -1,105 +1,126 @@
 package lunatic;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.res.ColorStateList;
-import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.Typeface;
-import android.os.Build;
 import android.text.TextPaint;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
 import codes.tad.lunatic.R;
 import org.threeten.bp.LocalDate;
-import org.threeten.bp.YearMonth;
 import org.threeten.bp.format.DateTimeFormatter;
 import org.threeten.bp.temporal.WeekFields;
 
 public class MonthView extends View {
 
-  // These must remain in ascending order!
-  @SuppressLint("InlinedApi") private static final int[] TEXT_APPEARANCE_ATTRS = {
-      android.R.attr.textSize, android.R.attr.typeface, android.R.attr.textStyle,
-      android.R.attr.textColor, android.R.attr.textAllCaps, android.R.attr.fontFamily,
-      android.R.attr.elegantTextHeight, android.R.attr.letterSpacing,
-      android.R.attr.fontFeatureSettings
-  };
-
-  private static final int TEXT_SIZE = 0;
-  private static final int TYPEFACE = 1;
-  private static final int TEXT_STYLE = 2;
-  private static final int TEXT_COLOR = 3;
-  private static final int TEXT_ALL_CAPS = 4;
-  private static final int FONT_FAMILY = 5;
-  private static final int ELEGANT_TEXT_HEIGHT = 6;
-  private static final int LETTER_SPACING = 7;
-  private static final int FONT_FEATURE_SETTINGS = 8;
-
-  private static final int SANS = 1;
-  private static final int SERIF = 2;
-  private static final int MONOSPACE = 3;
-
-  private static final int DAY_PAINT = 0;
-  private static final int MONTH_PAINT = 1;
-  private static final int WEEKDAY_PAINT = 2;
-
-  private static final int[] STATE_ACTIVATED = new int[] { android.R.attr.state_activated };
-  private static final int[] STATE_ENABLED = new int[] { android.R.attr.state_enabled };
-  private static final int[] STATE_PRESSED = new int[] { android.R.attr.state_pressed };
-  private static final int[] STATE_DISABLED = new int[] { -android.R.attr.state_enabled };
-  private static final int[] STATE_ENABLED_ACTIVATED = new int[] {
-      android.R.attr.state_enabled,
-      android.R.attr.state_activated
-  };
-  private static final int[] STATE_ENABLED_PRESSED = new int[] {
-      android.R.attr.state_enabled,
-      android.R.attr.state_pressed
-  };
-
-  private static final int SELECTED_HIGHLIGHT_ALPHA = 0xB0;
-
-  private final TextPaint dayPaint = new TextPaint();
-  private final TextPaint monthPaint = new TextPaint();
-  private final TextPaint weekdayPaint = new TextPaint();
-
-  private final Paint daySelectorPaint = new Paint();
-  private final Paint dayHighlightPaint = new Paint();
-  private final Paint dayHighlightSelectorPaint = new Paint();
-  private final Paint gridPaint = new Paint();
-
-  private final boolean[] textAllCaps = new boolean[3];
-  private final float[] textOffsetY = new float[3];
+  // Day label states, used as indices into the resolved day color table.
+  static final int DAY_STATE_ENABLED = 0;
+  static final int DAY_STATE_DISABLED = 1;
+  static final int DAY_STATE_TODAY = 2;
+  static final int DAY_STATE_HIGHLIGHTED = 3;
+  static final int DAY_STATE_ACTIVATED = 4;
+  static final int DAY_STATE_COUNT = 5;
+
+  // Whether the days just outside of the bound month are activated or highlighted, so that range
+  // highlights continue across the month boundary.
+  static final int RANGE_ACTIVATED_BEFORE = MonthBinder.RANGE_ACTIVATED_BEFORE;
+  static final int RANGE_ACTIVATED_AFTER = MonthBinder.RANGE_ACTIVATED_AFTER;
+  static final int RANGE_HIGHLIGHTED_BEFORE = MonthBinder.RANGE_HIGHLIGHTED_BEFORE;
+  static final int RANGE_HIGHLIGHTED_AFTER = MonthBinder.RANGE_HIGHLIGHTED_AFTER;
+
+  // Range highlight segments, packed as ints of row, first and last column, and kind and flags.
+  private static final int SEGMENT_SIZE = 4;
+  private static final int SEGMENT_HIGHLIGHTED = 1;
+  private static final int SEGMENT_ACTIVATED = 1 << 1;
+  private static final int SEGMENT_OPEN_START = 1 << 2;
+  private static final int SEGMENT_OPEN_END = 1 << 3;
+
+  private static final int DAY_PAINT = MonthStyle.DAY_PAINT;
+  private static final int MONTH_PAINT = MonthStyle.MONTH_PAINT;
+  private static final int WEEKDAY_PAINT = MonthStyle.WEEKDAY_PAINT;
+
+  /** Day-of-month labels, so that drawing a day does not allocate a String. */
+  static final char[][] DAY_NUMBERS = new char[31][];
+
+  static {
+    for (int i = 0; i < DAY_NUMBERS.length; i++) {
+      DAY_NUMBERS[i] = Integer.toString(i + 1).toCharArray();
+    }
+  }
+
+  private MonthStyle style;
+
+  // Shared with every view using the same style; see MonthStyle.
+  private TextPaint dayPaint;
+  private TextPaint monthPaint;
+  private TextPaint weekdayPaint;
+  private TextPaint decorationPaint;
+
+  private Paint daySelectorPaint;
+  private Paint dayHighlightPaint;
+  private Paint dayHighlightSelectorPaint;
+  private Paint gridPaint;
+  private Paint decorationDotPaint;
+  private float decorationDotRadius;
+
+  private boolean[] textAllCaps;
+  private float[] textOffsetY;
 
   private final Rect bounds = new Rect();
+  private final Rect dirty = new Rect();
+  private final RectF segmentRect = new RectF();
   private Grid dayGrid;
 
-  private int cellCount;
-  private int cellOffset;
-  private int rowCount;
-
   private int weekdayHeight;
   private int monthHeight;
 
   private int offsetX;
   private boolean drawGrid;
 
-  private ColorStateList dayTextColor;
+  private int[] dayColors;
+  private int dayPaintColor;
 
   private WeekFields weekFields;
+  private String headerPattern;
   private DateTimeFormatter headerFormatter;
   private String[] weekdayLabels;
+  private String[] weekdayLabelsSource;
   private SelectionListener listener;
 
-  private int today;
-
-  private String yearMonthLabel;
-  private boolean[] enabledDays;
+  private MonthRenderCache renderCache;
+  // The render this view last drew, held so that the cache does not reuse it while this view's
+  // display list may still draw it.
+  private Bitmap heldRender;
+  private MetricsSampler metrics;
+  private boolean glyphAtlasEnabled;
+  // The style's atlas while drawing day labels, if enabled.
+  private GlyphAtlas glyphAtlas;
+
+  private MonthModel model;
+  private Interval interval;
+  private int now;
+  private int enabledDays;
+  private int activatedDays;
+  private int highlightedDays;
+  private int rangeEdges;
+  private DayDecoration[] decorations;
+
+  // At most one segment per cell, so this never needs to grow.
+  private final int[] segments = new int[6 * 7 * SEGMENT_SIZE];
+  private int segmentCount;
+  private boolean segmentsValid;
+
+  /** Day of month under an ongoing touch, or 0. */
+  private int pressedDay;
 
   public MonthView(Context context) {
-    this(context, null);
+    this(context, (AttributeSet) null);
   }
 
   public MonthView(Context context, AttributeSet attrs) {
@@ -108,80 +129,89 @@ public class MonthView extends View {
 
   public MonthView(Context context, AttributeSet attrs, int defStyleAttr) {
     super(context, attrs, defStyleAttr);
+    setStyle(MonthStyle.obtain(context, attrs, defStyleAttr));
 
-    TypedArray a = context.getTheme().obtainStyledAttributes(
-        attrs, R.styleable.lunatic_MonthView, defStyleAttr, R.style.lunatic_MonthView);
+    if (isInEditMode()) {
+      bindFakeMonth();
+    }
+  }
 
-    int dayWidth = a.getDimensionPixelSize(R.styleable.lunatic_MonthView_lunatic_dayWidth, 0);
-    int dayHeight = a.getDimensionPixelSize(R.styleable.lunatic_MonthView_lunatic_dayHeight, 0);
-    weekdayHeight = a.getDimensionPixelSize(R.styleable.lunatic_MonthView_lunatic_weekDayHeight, 0);
-    monthHeight = a.getDimensionPixelSize(R.styleable.lunatic_MonthView_lunatic_monthHeight, 0);
+  /**
+   * Create a month view with an already resolved style, without inflating it from XML.
+   */
+  public MonthView(Context context, MonthStyle style) {
+    super(context);
+    setStyle(style);
+  }
 
-    drawGrid = a.getBoolean(R.styleable.lunatic_MonthView_lunatic_drawGrid, false);
-    gridPaint.setColor(a.getColor(R.styleable.lunatic_MonthView_lunatic_gridColor, 0xffcccccc));
-    gridPaint.setStrokeWidth(a.getDimension(R.styleable.lunatic_MonthView_lunatic_gridStroke, 1f));
+  public MonthStyle getStyle() {
+    return style;
+  }
 
-    final ColorStateList daySelectorColor =
-        a.getColorStateList(R.styleable.lunatic_MonthView_lunatic_daySelectorColor);
-    final int activatedColor;
-    if (daySelectorColor == null) {
-      activatedColor = a.getColor(R.styleable.lunatic_MonthView_lunatic_daySelectorColor, 0);
-    } else {
-      activatedColor = daySelectorColor.getColorForState(STATE_ENABLED_ACTIVATED, 0);
+  public void setStyle(MonthStyle style) {
+    if (style == null) {
+      throw new NullPointerException("style == null");
     }
-    daySelectorPaint.setColor(activatedColor);
-    dayHighlightSelectorPaint.setColor(activatedColor);
-    dayHighlightSelectorPaint.setAlpha(SELECTED_HIGHLIGHT_ALPHA);
-
-    final ColorStateList dayHighlightColor =
-        a.getColorStateList(R.styleable.lunatic_MonthView_lunatic_dayHighlightColor);
-    final int pressedColor;
-    if (dayHighlightColor == null) {
-      pressedColor = a.getColor(R.styleable.lunatic_MonthView_lunatic_dayHighlightColor, 0);
-    } else {
-      pressedColor = dayHighlightColor.getColorForState(STATE_ENABLED_PRESSED, 0);
+    if (style == this.style) {
+      return;
     }
-    dayHighlightPaint.setColor(pressedColor);
-
-    int textAppearanceDayRes =
-        a.getResourceId(R.styleable.lunatic_MonthView_lunatic_dateTextAppearance, 0);
-    int textAppearanceWeekdayRes =
-        a.getResourceId(R.styleable.lunatic_MonthView_lunatic_weekDayTextAppearance, 0);
-    int textAppearanceMonthRes =
-        a.getResourceId(R.styleable.lunatic_MonthView_lunatic_monthTextAppearance, 0);
-
-    a.recycle();
-
-    dayGrid = new Grid(6, 7, dayWidth, dayHeight);
-
-    setPaintTextAppearance(DAY_PAINT, dayPaint, textAppearanceDayRes);
-    setPaintTextAppearance(MONTH_PAINT, monthPaint, textAppearanceMonthRes);
-    setPaintTextAppearance(WEEKDAY_PAINT, weekdayPaint, textAppearanceWeekdayRes);
-
-    setDefaultPaintFlags(monthPaint);
-    setDefaultPaintFlags(weekdayPaint);
-    setDefaultPaintFlags(dayPaint);
-    setDefaultPaintFlags(daySelectorPaint);
-    setDefaultPaintFlags(dayHighlightPaint);
-    setDefaultPaintFlags(dayHighlightSelectorPaint);
-
-    if (isInEditMode()) {
-      bindFakeMonth();
+    final boolean allCapsChanged = this.style != null
+        && (this.style.textAllCaps[MONTH_PAINT] != style.textAllCaps[MONTH_PAINT]
+        || this.style.textAllCaps[WEEKDAY_PAINT] != style.textAllCaps[WEEKDAY_PAINT]);
+    this.style = style;
+
+    dayPaint = style.dayPaint;
+    monthPaint = style.monthPaint;
+    weekdayPaint = style.weekdayPaint;
+    decorationPaint = style.decorationPaint;
+    decorationDotPaint = style.decorationDotPaint;
+    decorationDotRadius = style.decorationDotRadius;
+    daySelectorPaint = style.daySelectorPaint;
+    dayHighlightPaint = style.dayHighlightPaint;
+    dayHighlightSelectorPaint = style.dayHighlightSelectorPaint;
+    gridPaint = style.gridPaint;
+    textAllCaps = style.textAllCaps;
+    textOffsetY = style.textOffsetY;
+    dayGrid = style.dayGrid;
+    weekdayHeight = style.weekdayHeight;
+    monthHeight = style.monthHeight;
+    drawGrid = style.drawGrid;
+    dayColors = style.dayColors;
+
+    if (allCapsChanged && model != null && headerFormatter != null) {
+      // Labels depend on the caps setting.
+      setStaticOptions(weekFields, headerPattern, headerFormatter, weekdayLabelsSource, listener,
+          true);
+      model = MonthModelCache.get(model.month, interval, now, weekFields, headerPattern,
+          headerFormatter, textAllCaps[MONTH_PAINT]);
     }
+    requestLayout();
+    invalidate();
   }
 
   @SuppressWarnings("unused")
   public void setTypeface(Typeface tf) {
-    setPaintTypeface(dayPaint, tf);
-    setPaintTypeface(weekdayPaint, tf);
-    setPaintTypeface(monthPaint, tf);
+    setStyle(style.withTypeface(tf));
+  }
+
+  void setStaticOptions(WeekFields weekFields, String headerPattern,
+      DateTimeFormatter headerFormatter, String[] weekdayLabels, SelectionListener listener) {
+    setStaticOptions(weekFields, headerPattern, headerFormatter, weekdayLabels, listener, false);
   }
 
-  void setStaticOptions(WeekFields weekFields, DateTimeFormatter headerFormatter,
-      String[] weekdayLabels, SelectionListener listener) {
+  private void setStaticOptions(WeekFields weekFields, String headerPattern,
+      DateTimeFormatter headerFormatter, String[] weekdayLabels, SelectionListener listener,
+      boolean force) {
+    if (!force && weekFields == this.weekFields && headerPattern == this.headerPattern
+        && headerFormatter == this.headerFormatter && weekdayLabels == weekdayLabelsSource
+        && listener == this.listener) {
+      return;
+    }
     this.weekFields = weekFields;
+    this.headerPattern = headerPattern;
     this.headerFormatter = headerFormatter;
 
+    weekdayLabelsSource = weekdayLabels;
     this.weekdayLabels = new String[7];
     System.arraycopy(weekdayLabels, 0, this.weekdayLabels, 0, 7);
     if (textAllCaps[WEEKDAY_PAINT]) {
@@ -193,39 +223,173 @@ public class MonthView extends View {
     this.listener = listener;
   }
 
-  void bind(final YearMonth month, final LocalDate now, final boolean[] enabledDays) {
-    cellCount = enabledDays.length;
-    cellOffset = Utils.startOfWeekOffset(weekFields, month.atDay(1).getDayOfWeek());
-    rowCount = (int) Math.ceil((double) (cellCount + cellOffset) / 7d);
-    this.enabledDays = enabledDays;
+  /**
+   * Report draw timings to {@code metrics}, or nothing if it is null.
+   */
+  void setMetrics(MetricsSampler metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Draw through a cache of rendered months, or directly if {@code renderCache} is null.
+   */
+  void setRenderCache(MonthRenderCache renderCache) {
+    if (this.renderCache != renderCache) {
+      releaseRender();
+      this.renderCache = renderCache;
+      invalidate();
+    }
+  }
 
-    yearMonthLabel = headerFormatter.format(month);
-    if (textAllCaps[MONTH_PAINT]) {
-      yearMonthLabel = yearMonthLabel.toUpperCase();
+  private void holdRender(Bitmap render) {
+    if (render != heldRender) {
+      renderCache.hold(render);
+      releaseRender();
+      heldRender = render;
     }
+  }
 
-    today = YearMonth.from(now).equals(month)
-        ? now.getDayOfMonth()
-        : -1;
+  private void releaseRender() {
+    if (heldRender != null) {
+      renderCache.release(heldRender);
+      heldRender = null;
+    }
+  }
 
-    requestLayout();
+  /**
+   * Draw day numbers from the style's {@link GlyphAtlas} instead of as text. The atlas is
+   * rasterized once per style and density, so it follows {@link #setStyle} and
+   * {@link #setTypeface}.
+   */
+  void setGlyphAtlasEnabled(boolean enabled) {
+    if (glyphAtlasEnabled != enabled) {
+      glyphAtlasEnabled = enabled;
+      invalidate();
+    }
+  }
+
+  /**
+   * Bind a packed month of an interval's chronology, given today's date as an epoch day.
+   */
+  void bind(final int month, final Interval interval, final int now, final int enabledDays,
+      final int activatedDays, final int highlightedDays, final DayDecoration[] decorations) {
+    final MonthModel model = MonthModelCache.get(month, interval, now, weekFields, headerPattern,
+        headerFormatter, textAllCaps[MONTH_PAINT]);
+    this.interval = interval;
+    this.now = now;
+    this.enabledDays = enabledDays;
+    this.activatedDays = activatedDays;
+    this.highlightedDays = highlightedDays;
+    this.decorations = decorations;
+    segmentsValid = false;
+    pressedDay = 0;
+
+    // Only rows affect our measured height, so skip the layout pass when they are unchanged.
+    if (this.model == null || this.model.rowCount != model.rowCount) {
+      requestLayout();
+    }
+    this.model = model;
     invalidate();
   }
 
+  void setEnabledDays(int enabledDays) {
+    if (this.enabledDays != enabledDays) {
+      this.enabledDays = enabledDays;
+      segmentsValid = false;
+      invalidate();
+    }
+  }
+
+  /**
+   * Update the activated (selected) days, redrawing only the days in {@code [firstDay, lastDay]}.
+   */
+  void setActivatedDays(int activatedDays, int firstDay, int lastDay) {
+    if (this.activatedDays != activatedDays) {
+      this.activatedDays = activatedDays;
+      segmentsValid = false;
+      invalidateDays(firstDay, lastDay);
+    }
+  }
+
+  /**
+   * Update the highlighted days, redrawing only the days in {@code [firstDay, lastDay]}.
+   */
+  void setHighlightedDays(int highlightedDays, int firstDay, int lastDay) {
+    if (this.highlightedDays != highlightedDays) {
+      this.highlightedDays = highlightedDays;
+      segmentsValid = false;
+      invalidateDays(firstDay, lastDay);
+    }
+  }
+
+  /**
+   * Set which of the days adjacent to the bound month are activated or highlighted, as a
+   * combination of the {@code RANGE_*} flags.
+   */
+  void setRangeEdges(int rangeEdges) {
+    if (this.rangeEdges != rangeEdges) {
+      this.rangeEdges = rangeEdges;
+      segmentsValid = false;
+      invalidate();
+    }
+  }
+
+  /**
+   * Update the day decorations, redrawing only the days in {@code [firstDay, lastDay]}.
+   */
+  void setDecorations(DayDecoration[] decorations, int firstDay, int lastDay) {
+    if (this.decorations != decorations) {
+      this.decorations = decorations;
+      invalidateDays(firstDay, lastDay);
+    }
+  }
+
+  /**
+   * Invalidate the smallest rectangle covering the cells for days {@code firstDay} through
+   * {@code lastDay}, both 1-indexed. The first and last days of the month include the empty cells
+   * before and after them, which range highlights may continue through.
+   */
+  void invalidateDays(int firstDay, int lastDay) {
+    if (model == null) {
+      invalidate();
+      return;
+    }
+    int firstCell = model.offset + Math.max(firstDay, 1) - 1;
+    int lastCell = model.offset + Math.min(lastDay, model.length) - 1;
+    if (firstCell > lastCell) {
+      return;
+    }
+    if (firstDay <= 1) {
+      firstCell = 0;
+    }
+    if (lastDay >= model.length) {
+      lastCell = lastCell - lastCell % 7 + 6;
+    }
+
+    final int firstRow = firstCell / 7;
+    final int lastRow = lastCell / 7;
+    if (firstRow == lastRow) {
+      dayGrid.rect(firstCell % 7, firstRow, lastCell % 7, lastRow, dirty);
+    } else {
+      dayGrid.rect(0, firstRow, 6, lastRow, dirty);
+    }
+    dirty.offset(offsetX, bounds.top + monthHeight + weekdayHeight);
+    invalidate(dirty);
+  }
+
   private void bindFakeMonth() {
-    cellCount = 30;
-    cellOffset = 0;
-    rowCount = (int) Math.ceil((double) (cellCount + cellOffset) / 7d);
+    final int month = Months.pack(2015, 11);
+    model = new MonthModel(month, Months.firstDay(month), 0, 30, 13, "November 2015");
 
-    enabledDays = new boolean[cellCount];
-    for (int i = 0; i < cellCount; i++) {
-      enabledDays[i] = i % 12 != 0;
+    enabledDays = 0;
+    for (int i = 0; i < model.length; i++) {
+      if (i % 12 != 0) {
+        enabledDays |= 1 << i;
+      }
     }
 
     weekFields = WeekFields.SUNDAY_START;
-    yearMonthLabel = "November 2015";
     weekdayLabels = new String[] { "S", "M", "T", "W", "T", "F", "S" };
-    today = 13;
 
     requestLayout();
     invalidate();
@@ -239,7 +403,7 @@ public class MonthView extends View {
     setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
         resolveSize(monthHeight
             + weekdayHeight
-            + dayGrid.bottom(rowCount - 1)
+            + dayGrid.bottom(model != null ? model.rowCount - 1 : dayGrid.rows - 1)
             + getPaddingTop()
             + getPaddingBottom(), heightMeasureSpec));
   }
@@ -256,7 +420,114 @@ public class MonthView extends View {
     offsetX = (bounds.width() - dayGrid.width()) / 2;
   }
 
+  @Override protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (renderCache != null) {
+      // The render was released on detach, so draw again rather than reuse the display list.
+      invalidate();
+    }
+  }
+
+  @Override protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    releaseRender();
+  }
+
   @Override protected void onDraw(Canvas canvas) {
+    if (model == null) {
+      return;
+    }
+
+    if (metrics != null && metrics.sampleDraw()) {
+      final long start = System.nanoTime();
+      final boolean cached = drawCached(canvas);
+      metrics.reportDraw(System.nanoTime() - start, cached);
+    } else {
+      drawCached(canvas);
+    }
+
+    // Drawn over the content, so that pressing a day does not invalidate its cached render.
+    if (pressedDay != 0) {
+      drawPressedDay(canvas);
+    }
+  }
+
+  @Override public boolean onTouchEvent(MotionEvent event) {
+    if (model == null || !isEnabled()) {
+      return false;
+    }
+
+    final int day = dayAt(event.getX(), event.getY());
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        if (day == 0 || !isDayEnabled(day)) {
+          return false;
+        }
+        setPressedDay(day);
+        return true;
+      case MotionEvent.ACTION_MOVE:
+        if (day != pressedDay) {
+          // Cancel the press once the touch leaves the day.
+          setPressedDay(0);
+        }
+        return true;
+      case MotionEvent.ACTION_UP:
+        if (pressedDay != 0 && day == pressedDay) {
+          setPressedDay(0);
+          if (listener != null) {
+            playSoundEffect(SoundEffectConstants.CLICK);
+            listener.onDateSelected(LocalDate.ofEpochDay(model.firstDay + day - 1));
+          }
+        }
+        return true;
+      case MotionEvent.ACTION_CANCEL:
+        setPressedDay(0);
+        return true;
+    }
+    return false;
+  }
+
+  private void setPressedDay(int day) {
+    if (day != pressedDay) {
+      final int old = pressedDay;
+      pressedDay = day;
+      invalidateDays(old, old);
+      invalidateDays(day, day);
+    }
+  }
+
+  private void drawPressedDay(Canvas canvas) {
+    final int cell = model.offset + pressedDay - 1;
+    final float radius = Math.min(dayGrid.cellWidth(), dayGrid.cellHeight()) / 2f;
+    canvas.drawCircle(offsetX + dayGrid.centerX(cell % 7),
+        bounds.top + monthHeight + weekdayHeight + dayGrid.centerY(cell / 7), radius,
+        dayHighlightPaint);
+  }
+
+  /**
+   * Draw through the render cache if there is one, returning whether the render was cached.
+   */
+  private boolean drawCached(Canvas canvas) {
+    if (renderCache == null || weekdayLabelsSource == null || getWidth() == 0
+        || getHeight() == 0) {
+      releaseRender();
+      drawContent(canvas);
+      return false;
+    }
+
+    Bitmap render = renderCache.get(model, enabledDays, activatedDays, highlightedDays,
+        rangeEdges, decorations, style, weekdayLabelsSource, getWidth(), getHeight());
+    final boolean cached = render != null;
+    if (!cached) {
+      drawContent(renderCache.beginRender());
+      render = renderCache.endRender();
+    }
+    holdRender(render);
+    canvas.drawBitmap(render, 0, 0, null);
+    return cached;
+  }
+
+  private void drawContent(Canvas canvas) {
     drawMonth(canvas);
     drawWeekdayLabels(canvas);
     drawDayGrid(canvas);
@@ -267,7 +538,7 @@ public class MonthView extends View {
     canvas.save();
     canvas.translate(bounds.centerX(),
         bounds.top + (monthHeight / 2) + textOffsetY[MONTH_PAINT]);
-    canvas.drawText(yearMonthLabel, 0, 0, monthPaint);
+    canvas.drawText(model.label, 0, 0, monthPaint);
     canvas.restore();
   }
 
@@ -292,6 +563,8 @@ public class MonthView extends View {
       return;
     }
 
+    final int rowCount = model.rowCount;
+
     canvas.save();
     canvas.translate(offsetX, bounds.top + monthHeight + weekdayHeight);
 
@@ -319,180 +592,271 @@ public class MonthView extends View {
     canvas.save();
     canvas.translate(offsetX, bounds.top + monthHeight + weekdayHeight);
 
-    for (int row = 0; row < dayGrid.rows; row++) {
-      for (int col = 0; col < 7; col++) {
-        int day = dayAt(row, col);
-        if (day < 1 || day > cellCount) {
-          continue;
+    drawDayHighlights(canvas);
+
+    dayPaintColor = dayPaint.getColor();
+    glyphAtlas = glyphAtlasEnabled
+        ? style.dayGlyphAtlas(getResources().getDisplayMetrics().density)
+        : null;
+
+    // Draw days grouped by state, so the paint color changes at most once per state.
+    for (int state = 0; state < DAY_STATE_COUNT; state++) {
+      for (int row = 0; row < model.rowCount; row++) {
+        for (int col = 0; col < 7; col++) {
+          int day = dayAt(row, col);
+          if (day < 1 || day > model.length || dayState(day) != state) {
+            continue;
+          }
+          drawDayLabel(canvas, day,
+              dayGrid.centerX(col),
+              dayGrid.centerY(row) + textOffsetY[DAY_PAINT]);
         }
-        drawDayLabel(canvas, day,
-            dayGrid.centerX(col),
-            dayGrid.centerY(row) + textOffsetY[DAY_PAINT]);
       }
     }
 
-    canvas.restore();
-  }
-
-  protected void drawDayLabel(Canvas canvas, int dayOfMonth, float x, float y) {
-    int[] stateSet;
-
-    if (isDayEnabled(dayOfMonth)) {
-      // TODO isActivated
-      // TODO isHighlighted
-      stateSet = STATE_ENABLED;
-    } else {
-      stateSet = STATE_DISABLED;
-    }
-
-    final int textColor;
-    if (today == dayOfMonth) {
-      textColor = daySelectorPaint.getColor();
-    } else {
-      textColor = dayTextColor.getColorForState(stateSet, 0);
+    if (decorations != null) {
+      final int count = Math.min(decorations.length, model.length);
+      for (int i = 0; i < count; i++) {
+        if (decorations[i] != null) {
+          final int cell = model.offset + i;
+          drawDayDecoration(canvas, i + 1, decorations[i], dayGrid.centerX(cell % 7),
+              dayGrid.top(cell / 7), dayGrid.bottom(cell / 7));
+        }
+      }
     }
-    dayPaint.setColor(textColor);
 
-    canvas.drawText(String.valueOf(dayOfMonth), x, y, dayPaint);
+    canvas.restore();
   }
 
   /**
-   * Return the day number at the specified calendar grid coordinate.
-   * <p />
-   * Note: This result is 1-indexed!
+   * Draw activated and highlighted days as one rounded segment per run of consecutive days in a
+   * week row, rather than one shape per day. Segments are flat where the run continues on the
+   * next or previous row, or into the adjacent month, and are recomputed only after a change.
    */
-  private int dayAt(int row, int col) {
-    return (row * 7) + col - cellOffset + 1;
-  }
+  protected void drawDayHighlights(Canvas canvas) {
+    if (!segmentsValid) {
+      computeSegments();
+      segmentsValid = true;
+    }
 
-  private boolean isDayEnabled(int dayOfMonth) {
-    return enabledDays[dayOfMonth - 1];
+    final float radius = Math.min(dayGrid.cellWidth(), dayGrid.cellHeight()) / 2f;
+    for (int i = 0; i < segmentCount; i += SEGMENT_SIZE) {
+      final int row = segments[i];
+      final int firstCol = segments[i + 1];
+      final int lastCol = segments[i + 2];
+      final int flags = segments[i + 3];
+
+      final Paint paint;
+      if ((flags & SEGMENT_ACTIVATED) == 0) {
+        paint = dayHighlightPaint;
+      } else if ((flags & SEGMENT_HIGHLIGHTED) == 0) {
+        paint = daySelectorPaint;
+      } else {
+        paint = dayHighlightSelectorPaint;
+      }
+
+      // Open ends overhang their cell by the corner radius, which the clip then cuts off square.
+      final boolean openStart = (flags & SEGMENT_OPEN_START) != 0;
+      final boolean openEnd = (flags & SEGMENT_OPEN_END) != 0;
+      segmentRect.set(
+          openStart ? dayGrid.left(firstCol) - radius : dayGrid.centerX(firstCol) - radius,
+          dayGrid.centerY(row) - radius,
+          openEnd ? dayGrid.right(lastCol) + radius : dayGrid.centerX(lastCol) + radius,
+          dayGrid.centerY(row) + radius);
+      if (openStart || openEnd) {
+        canvas.save();
+        dayGrid.rect(firstCol, row, lastCol, row, dirty);
+        canvas.clipRect(dirty);
+        canvas.drawRoundRect(segmentRect, radius, radius, paint);
+        canvas.restore();
+      } else {
+        canvas.drawRoundRect(segmentRect, radius, radius, paint);
+      }
+    }
   }
 
-  protected void setPaintTextAppearance(int paintIndex, TextPaint paint, int textAppearanceResId) {
-    if (paint == null || textAppearanceResId <= 0) {
+  private void computeSegments() {
+    segmentCount = 0;
+    if (((activatedDays | highlightedDays) & enabledDays & Utils.daysMask(model.length)) == 0) {
       return;
     }
 
-    TypedArray a =
-        getContext().getTheme().obtainStyledAttributes(textAppearanceResId, TEXT_APPEARANCE_ATTRS);
-
-    int textSize = 15;
-    int typefaceIndex = -1;
-    int styleIndex = -1;
-    ColorStateList textColor = null;
-    boolean allCaps = false;
-    String fontFamily = null;
-    boolean elegant = false;
-    float letterSpacing = 0;
-    String fontFeatureSettings = null;
-
-    for (int i = 0; i < a.getIndexCount(); i++) {
-      int attr = a.getIndex(i);
-      switch (attr) {
-        case TEXT_SIZE:
-          textSize = a.getDimensionPixelSize(attr, textSize);
-          break;
-        case TYPEFACE:
-          typefaceIndex = a.getInt(attr, typefaceIndex);
-          break;
-        case TEXT_STYLE:
-          styleIndex = a.getInt(attr, styleIndex);
-          break;
-        case TEXT_COLOR:
-          textColor = a.getColorStateList(attr);
-          break;
-        case TEXT_ALL_CAPS:
-          allCaps = a.getBoolean(attr, allCaps);
-          break;
-        case FONT_FAMILY:
-          fontFamily = a.getString(attr);
-          break;
-        case ELEGANT_TEXT_HEIGHT:
-          elegant = a.getBoolean(attr, elegant);
-          break;
-        case LETTER_SPACING:
-          letterSpacing = a.getFloat(attr, letterSpacing);
-          break;
-        case FONT_FEATURE_SETTINGS:
-          fontFeatureSettings = a.getString(attr);
-          break;
+    for (int row = 0; row < model.rowCount; row++) {
+      int col = 0;
+      while (col < 7) {
+        final int kind = segmentKind(dayAt(row, col));
+        if (kind == 0) {
+          col++;
+          continue;
+        }
+        final int firstCol = col;
+        while (col < 6 && segmentKind(dayAt(row, col + 1)) == kind) {
+          col++;
+        }
+        addSegment(row, firstCol, col, kind);
+        col++;
       }
     }
+  }
 
-    a.recycle();
-
-    paint.setTextSize(textSize);
+  private void addSegment(int row, int firstCol, int lastCol, int kind) {
+    final int firstDay = dayAt(row, firstCol);
+    final int lastDay = dayAt(row, lastCol);
+    int flags = kind;
 
-    if (textColor != null) {
-      paint.setColor(textColor.getDefaultColor());
-      if (paintIndex == DAY_PAINT) {
-        dayTextColor = textColor;
+    if (firstDay > 1) {
+      if (segmentKind(firstDay - 1) != 0) {
+        flags |= SEGMENT_OPEN_START;
+      }
+    } else if (continuesBefore(kind)) {
+      // Run on through the empty cells before the first day, into the previous month.
+      flags |= SEGMENT_OPEN_START;
+      firstCol = 0;
+    }
+    if (lastDay < model.length) {
+      if (segmentKind(lastDay + 1) != 0) {
+        flags |= SEGMENT_OPEN_END;
       }
+    } else if (continuesAfter(kind)) {
+      flags |= SEGMENT_OPEN_END;
+      lastCol = 6;
     }
-    textAllCaps[paintIndex] = allCaps;
 
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-      paint.setElegantTextHeight(elegant);
-      paint.setLetterSpacing(letterSpacing);
-      paint.setFontFeatureSettings(fontFeatureSettings);
+    segments[segmentCount] = row;
+    segments[segmentCount + 1] = firstCol;
+    segments[segmentCount + 2] = lastCol;
+    segments[segmentCount + 3] = flags;
+    segmentCount += SEGMENT_SIZE;
+  }
+
+  private boolean continuesBefore(int kind) {
+    return ((kind & SEGMENT_ACTIVATED) != 0 && (rangeEdges & RANGE_ACTIVATED_BEFORE) != 0)
+        || ((kind & SEGMENT_HIGHLIGHTED) != 0 && (rangeEdges & RANGE_HIGHLIGHTED_BEFORE) != 0);
+  }
+
+  private boolean continuesAfter(int kind) {
+    return ((kind & SEGMENT_ACTIVATED) != 0 && (rangeEdges & RANGE_ACTIVATED_AFTER) != 0)
+        || ((kind & SEGMENT_HIGHLIGHTED) != 0 && (rangeEdges & RANGE_HIGHLIGHTED_AFTER) != 0);
+  }
+
+  /**
+   * Return the segment kind of a day, or 0 if it is not drawn with a highlight.
+   */
+  private int segmentKind(int dayOfMonth) {
+    if (dayOfMonth < 1 || dayOfMonth > model.length || !isDayEnabled(dayOfMonth)) {
+      return 0;
     }
+    return (isDayActivated(dayOfMonth) ? SEGMENT_ACTIVATED : 0)
+        | (isDayHighlighted(dayOfMonth) ? SEGMENT_HIGHLIGHTED : 0);
+  }
 
-    setPaintTypefaceFromAttrs(paint, fontFamily, typefaceIndex, styleIndex);
+  protected void drawDayLabel(Canvas canvas, int dayOfMonth, float x, float y) {
+    final int textColor = dayColors[dayState(dayOfMonth)];
+    if (textColor != dayPaintColor) {
+      dayPaint.setColor(textColor);
+      dayPaintColor = textColor;
+    }
 
-    paint.setTextAlign(Paint.Align.CENTER);
-    textOffsetY[paintIndex] = -((paint.ascent() - paint.descent()) / 2);
+    if (glyphAtlas != null) {
+      glyphAtlas.drawDay(canvas, dayOfMonth, x, y, dayPaint);
+      return;
+    }
+    final char[] label = DAY_NUMBERS[dayOfMonth - 1];
+    canvas.drawText(label, 0, label.length, x, y, dayPaint);
   }
 
-  private void setPaintTypefaceFromAttrs(Paint paint, String familyName, int typefaceIndex,
-      int styleIndex) {
-    Typeface tf = null;
-    if (familyName != null) {
-      tf = Typeface.create(familyName, styleIndex);
-      if (tf != null) {
-        setPaintTypeface(paint, tf);
-        return;
-      }
+  /**
+   * Draw a day's decoration: its dot at the top of the cell, and its label at the bottom.
+   */
+  protected void drawDayDecoration(Canvas canvas, int dayOfMonth, DayDecoration decoration,
+      float x, float top, float bottom) {
+    if (decoration.dotColor() != DayDecoration.NO_DOT) {
+      decorationDotPaint.setColor(decoration.dotColor());
+      canvas.drawCircle(x, top + decorationDotRadius * 3, decorationDotRadius,
+          decorationDotPaint);
+    }
+    final String label = decoration.label();
+    if (!label.isEmpty()) {
+      canvas.drawText(label, x, bottom - decorationPaint.descent() - decorationDotRadius,
+          decorationPaint);
+    }
+  }
+
+  private int dayState(int dayOfMonth) {
+    if (!isDayEnabled(dayOfMonth)) {
+      return model.today == dayOfMonth ? DAY_STATE_TODAY : DAY_STATE_DISABLED;
+    }
+    if (isDayActivated(dayOfMonth)) {
+      return DAY_STATE_ACTIVATED;
     }
-    switch (typefaceIndex) {
-      case SANS:
-        tf = Typeface.SANS_SERIF;
-        break;
+    if (isDayHighlighted(dayOfMonth)) {
+      return DAY_STATE_HIGHLIGHTED;
+    }
+    return model.today == dayOfMonth ? DAY_STATE_TODAY : DAY_STATE_ENABLED;
+  }
 
-      case SERIF:
-        tf = Typeface.SERIF;
-        break;
+  /**
+   * Return the day number at the specified calendar grid coordinate.
+   * <p />
+   * Note: This result is 1-indexed!
+   */
+  private int dayAt(int row, int col) {
+    return (row * 7) + col - model.offset + 1;
+  }
 
-      case MONOSPACE:
-        tf = Typeface.MONOSPACE;
-        break;
+  /**
+   * Return the day of month at a point in this view, or 0 if there is none.
+   */
+  private int dayAt(float x, float y) {
+    final int col = dayGrid.col((int) x - offsetX);
+    final int row = dayGrid.row((int) y - (bounds.top + monthHeight + weekdayHeight));
+    if (col < 0 || row < 0 || row >= model.rowCount) {
+      return 0;
     }
+    final int day = dayAt(row, col);
+    return day >= 1 && day <= model.length ? day : 0;
+  }
 
-    setPaintTypeface(paint, tf, styleIndex);
+  private boolean isDayEnabled(int dayOfMonth) {
+    return (enabledDays & (1 << (dayOfMonth - 1))) != 0;
   }
 
-  protected void setPaintTypeface(Paint paint, Typeface tf, int style) {
-    if (style > 0) {
-      if (tf == null) {
-        tf = Typeface.defaultFromStyle(style);
-      } else {
-        tf = Typeface.create(tf, style);
-      }
+  private boolean isDayActivated(int dayOfMonth) {
+    return (activatedDays & (1 << (dayOfMonth - 1))) != 0;
+  }
 
-      setPaintTypeface(paint, tf);
+  private boolean isDayHighlighted(int dayOfMonth) {
+    return (highlightedDays & (1 << (dayOfMonth - 1))) != 0;
+  }
 
-      // Fake styles.
-      int typefaceStyle = tf != null ? tf.getStyle() : 0;
-      int need = style & ~typefaceStyle;
-      paint.setFakeBoldText((need & Typeface.BOLD) != 0);
-      paint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
-    } else {
-      paint.setFakeBoldText(false);
-      paint.setTextSkewX(0);
-      setPaintTypeface(paint, tf);
+  /**
+   * @deprecated This view's paints are resolved by its {@link MonthStyle} and shared with other
+   * views, so this only applies the text appearance to {@code paint}. To restyle this view, set a
+   * style resolved with {@link MonthStyle#obtain} through {@link #setStyle}.
+   */
+  @Deprecated
+  protected void setPaintTextAppearance(int paintIndex, TextPaint paint, int textAppearanceResId) {
+    if (paint == null || textAppearanceResId <= 0) {
+      return;
     }
+    MonthStyle.setPaintTextAppearance(getContext(), paintIndex, paint, textAppearanceResId,
+        new boolean[textAllCaps.length], new float[textOffsetY.length]);
+  }
+
+  /**
+   * @deprecated Use {@link #setTypeface} to change the typeface of this view's paints.
+   */
+  @Deprecated
+  protected void setPaintTypeface(Paint paint, Typeface tf, int style) {
+    MonthStyle.setPaintTypeface(paint, tf, style);
+    requestLayout();
+    invalidate();
   }
 
+  /**
+   * @deprecated Use {@link #setTypeface} to change the typeface of this view's paints.
+   */
+  @Deprecated
   protected void setPaintTypeface(Paint paint, Typeface tf) {
     if (paint.getTypeface() != tf) {
       paint.setTypeface(tf);
@@ -501,8 +865,11 @@ public class MonthView extends View {
     }
   }
 
+  /**
+   * @deprecated This view's paints are set up by its {@link MonthStyle}.
+   */
+  @Deprecated
   protected void setDefaultPaintFlags(Paint paint) {
-    paint.setAntiAlias(true);
-    paint.setStyle(Paint.Style.FILL);
+    MonthStyle.setDefaultPaintFlags(paint);
   }
 }
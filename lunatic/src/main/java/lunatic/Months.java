@@ -0,0 +1,111 @@
+package lunatic;
+
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+import org.threeten.bp.jdk8.Jdk8Methods;
+
+/**
+ * Allocation-free ISO calendar arithmetic on packed values.
+ * <p />
+ * Months are packed as {@code year * 12 + (monthOfYear - 1)}, so consecutive months are
+ * consecutive integers, and days are represented as epoch days. {@link LocalDate} and
+ * {@link YearMonth} only need to be created at the edges of the public API.
+ */
+final class Months {
+  /** Days from 0000-03-01 to 1970-01-01. */
+  private static final int DAYS_0000_TO_1970 = 719468;
+  private static final int DAYS_PER_CYCLE = 146097;
+
+  static int pack(int year, int monthOfYear) {
+    return year * 12 + (monthOfYear - 1);
+  }
+
+  static int of(YearMonth month) {
+    return pack(month.getYear(), month.getMonthValue());
+  }
+
+  static int of(LocalDate date) {
+    return pack(date.getYear(), date.getMonthValue());
+  }
+
+  static int year(int month) {
+    return Jdk8Methods.floorDiv(month, 12);
+  }
+
+  static int monthOfYear(int month) {
+    return Jdk8Methods.floorMod(month, 12) + 1;
+  }
+
+  static YearMonth toYearMonth(int month) {
+    return YearMonth.of(year(month), monthOfYear(month));
+  }
+
+  static boolean isLeapYear(int year) {
+    return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  static int length(int month) {
+    switch (monthOfYear(month)) {
+      case 2:
+        return isLeapYear(year(month)) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * Return the epoch day of the first day of a month.
+   */
+  static int firstDay(int month) {
+    // Count years from March, so that the leap day falls at the end of the year.
+    final int monthOfYear = monthOfYear(month);
+    final int year = year(month) - (monthOfYear <= 2 ? 1 : 0);
+    final int era = Jdk8Methods.floorDiv(year, 400);
+    final int yearOfEra = year - era * 400;
+    final int dayOfYear = (153 * (monthOfYear > 2 ? monthOfYear - 3 : monthOfYear + 9) + 2) / 5;
+    final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * DAYS_PER_CYCLE + dayOfEra - DAYS_0000_TO_1970;
+  }
+
+  /**
+   * Return the month containing an epoch day.
+   */
+  static int ofEpochDay(int epochDay) {
+    final int days = epochDay + DAYS_0000_TO_1970;
+    final int era = Jdk8Methods.floorDiv(days, DAYS_PER_CYCLE);
+    final int dayOfEra = days - era * DAYS_PER_CYCLE;
+    final int yearOfEra =
+        (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final int marchMonth = (5 * dayOfYear + 2) / 153;
+    final int monthOfYear = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+    final int year = yearOfEra + era * 400 + (monthOfYear <= 2 ? 1 : 0);
+    return pack(year, monthOfYear);
+  }
+
+  /**
+   * Return the ISO day of week of an epoch day, from 1 (Monday) to 7 (Sunday).
+   */
+  static int dayOfWeek(int epochDay) {
+    // 1970-01-01 was a Thursday.
+    return Jdk8Methods.floorMod(epochDay + 3, 7) + 1;
+  }
+
+  /**
+   * Return the number of days preceding the first day of a month in its first week.
+   *
+   * @param firstDayOfWeek the first day of the week; 1 (Monday) through 7 (Sunday)
+   */
+  static int startOfWeekOffset(int month, int firstDayOfWeek) {
+    return Jdk8Methods.floorMod(dayOfWeek(firstDay(month)) - firstDayOfWeek, 7);
+  }
+
+  private Months() {
+    throw new UnsupportedOperationException("No instances!");
+  }
+}
@@ -1,11 +1,18 @@
 package lunatic;
 
 import com.google.auto.value.AutoValue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Locale;
+import org.threeten.bp.DateTimeException;
 import org.threeten.bp.DayOfWeek;
 import org.threeten.bp.LocalDate;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.chrono.IsoChronology;
 import org.threeten.bp.format.DateTimeFormatter;
-import org.threeten.bp.format.DateTimeFormatterBuilder;
 import org.threeten.bp.format.TextStyle;
 import org.threeten.bp.temporal.WeekFields;
 
@@ -14,30 +21,107 @@ import org.threeten.bp.temporal.WeekFields;
  */
 @AutoValue
 public abstract class Options {
+  private static final int ENCODING_VERSION = 1;
+
   public abstract LocalDate min();
   public abstract LocalDate max();
   public abstract LocalDate now();
   public abstract String headerPattern();
   public abstract WeekFields weekFields();
   public abstract TextStyle weekdayStyle();
+  /**
+   * The calendar system whose months are displayed. Dates are still given as ISO
+   * {@link LocalDate}s, and filters and decoration sources are still queried by ISO month.
+   */
+  public abstract Chronology chronology();
   abstract Locale locale();
 
+  /**
+   * Return the header formatter, shared process-wide through {@link FormatterCache}.
+   */
   DateTimeFormatter buildHeaderFormatter() {
-    return new DateTimeFormatterBuilder()
-        .appendPattern(headerPattern())
-        .toFormatter(locale());
+    return FormatterCache.headerFormatter(locale(), headerPattern(), chronology());
   }
 
+  /**
+   * Return the weekday names, shared process-wide through {@link FormatterCache}; the returned
+   * array must not be modified.
+   */
   String[] buildWeekdayNames() {
-    String[] names = new String[7];
-    int firstDayOfWeek = weekFields().getFirstDayOfWeek().getValue();
-    for (int i = 0; i < 7; i++) {
-      // Populate week names based on the locale-specific definition of a week;
-      // i.e. {"M", "T", "W", ...} for the ISO8601 locale.
-      names[Utils.startOfWeekOffset(weekFields(), DayOfWeek.of(i + 1))] =
-          DayOfWeek.of(i + 1).getDisplayName(weekdayStyle(), locale());
+    return FormatterCache.weekdayNames(locale(), weekFields(), weekdayStyle());
+  }
+
+  /**
+   * Encode these options for saved state, with dates as epoch days.
+   *
+   * @see #fromByteArray(byte[])
+   */
+  byte[] toByteArray() {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeByte(ENCODING_VERSION);
+      out.writeInt((int) min().toEpochDay());
+      out.writeInt((int) max().toEpochDay());
+      out.writeInt((int) now().toEpochDay());
+      out.writeUTF(headerPattern());
+      out.writeByte(weekFields().getFirstDayOfWeek().getValue());
+      out.writeByte(weekFields().getMinimalDaysInFirstWeek());
+      out.writeByte(weekdayStyle().ordinal());
+      out.writeUTF(chronology().getId());
+      // Locale.toLanguageTag() requires API 21.
+      out.writeUTF(locale().getLanguage());
+      out.writeUTF(locale().getCountry());
+      out.writeUTF(locale().getVariant());
+    } catch (IOException e) {
+      // Writing to memory does not fail.
+      throw new AssertionError(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decode options encoded with {@link #toByteArray()}.
+   *
+   * @throws IllegalArgumentException if {@code bytes} is not a valid encoding
+   */
+  static Options fromByteArray(byte[] bytes) {
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    try {
+      if (in.readByte() != ENCODING_VERSION) {
+        throw new IllegalArgumentException("Unknown encoding.");
+      }
+      final LocalDate min = LocalDate.ofEpochDay(in.readInt());
+      final LocalDate max = LocalDate.ofEpochDay(in.readInt());
+      final LocalDate now = LocalDate.ofEpochDay(in.readInt());
+      final String headerPattern = in.readUTF();
+      final WeekFields weekFields = WeekFields.of(DayOfWeek.of(in.readByte()), in.readByte());
+      final int weekdayStyle = in.readByte();
+      if (weekdayStyle < 0 || weekdayStyle >= TextStyle.values().length) {
+        throw new IllegalArgumentException("Invalid weekday style: " + weekdayStyle);
+      }
+      final Chronology chronology = Chronology.of(in.readUTF());
+      final Locale locale = new Locale(in.readUTF(), in.readUTF(), in.readUTF());
+      if (in.read() != -1) {
+        throw new IllegalArgumentException("Trailing bytes.");
+      }
+      // Not builder(locale), whose defaults read the clock and the locale's week rules only to be
+      // overwritten here.
+      return new AutoValue_Options.Builder()
+          .locale(locale)
+          .min(min)
+          .max(max)
+          .now(now)
+          .headerPattern(headerPattern)
+          .weekFields(weekFields)
+          .weekdayStyle(TextStyle.values()[weekdayStyle])
+          .chronology(chronology)
+          .build();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated encoding.", e);
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
     }
-    return names;
   }
 
   /**
@@ -57,7 +141,8 @@ public abstract class Options {
         .max(now.plusYears(1))
         .now(now)
         .weekFields(WeekFields.of(locale))
-        .weekdayStyle(TextStyle.NARROW);
+        .weekdayStyle(TextStyle.NARROW)
+        .chronology(IsoChronology.INSTANCE);
   }
 
   @AutoValue.Builder
@@ -68,6 +153,7 @@ public abstract class Options {
     public abstract Builder headerPattern(String headerPattern);
     public abstract Builder weekFields(WeekFields weekFields);
     public abstract Builder weekdayStyle(TextStyle weekdayStyle);
+    public abstract Builder chronology(Chronology chronology);
     abstract Builder locale(Locale locale);
     public abstract Options build();
   }
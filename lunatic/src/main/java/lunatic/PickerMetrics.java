@@ -0,0 +1,38 @@
+package lunatic;
+
+/**
+ * Receives timings of the work done by a {@link DatePickerView}, for monitoring performance in
+ * production. Durations are in nanoseconds.
+ * <p />
+ * Callbacks are made on the main thread while the picker is laying out or drawing, except for
+ * {@link #onFilterEvaluated(long)}, which is called on the filter executor if one is set. Keep
+ * them fast, e.g. by adding to a histogram.
+ *
+ * @see DatePickerView#setMetrics(PickerMetrics, int)
+ */
+public interface PickerMetrics {
+  /**
+   * A month view was created.
+   */
+  void onViewCreated(long durationNanos);
+
+  /**
+   * A month was bound to a view.
+   *
+   * @param modelCached whether the month's layout was found in the shared cache
+   */
+  void onMonthBound(long durationNanos, boolean modelCached);
+
+  /**
+   * The date filter was evaluated for a month.
+   */
+  void onFilterEvaluated(long durationNanos);
+
+  /**
+   * A month was drawn.
+   *
+   * @param renderCached whether the month was drawn from the render cache, see
+   * {@link DatePickerView#setRenderCacheSize(int)}
+   */
+  void onMonthDrawn(long durationNanos, boolean renderCached);
+}
@@ -0,0 +1,241 @@
+package lunatic;
+
+import org.threeten.bp.LocalDate;
+
+/**
+ * The dates selected in a {@link DatePickerView}.
+ * <p />
+ * Dates are stored as sorted runs of consecutive days rather than as individual dates, so large
+ * selections stay compact and membership tests take logarithmic time in the number of runs.
+ */
+public final class Selection {
+  public enum Mode {
+    /** At most one date is selected. */
+    SINGLE,
+    /** A single contiguous range of dates is selected. */
+    RANGE,
+    /** Any number of dates is selected. */
+    MULTIPLE
+  }
+
+  interface Observer {
+    /**
+     * Called when the selection state of any dates in {@code [firstDay, lastDay]} may have
+     * changed, both given as epoch days.
+     */
+    void onSelectionChanged(int firstDay, int lastDay);
+  }
+
+  private final DayRuns runs = new DayRuns();
+  private Mode mode;
+  private Observer observer;
+
+  // In RANGE mode, whether the selection is a start date waiting for an end date.
+  private boolean rangeOpen;
+
+  Selection(Mode mode) {
+    this.mode = mode;
+  }
+
+  void setObserver(Observer observer) {
+    this.observer = observer;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Change the selection mode, clearing the selection if the mode changes.
+   */
+  public void setMode(Mode mode) {
+    if (mode == null) {
+      throw new NullPointerException("mode == null");
+    }
+    if (mode != this.mode) {
+      this.mode = mode;
+      clear();
+    }
+  }
+
+  /**
+   * Select a date according to the selection mode, as if it were tapped.
+   * <p />
+   * In {@link Mode#SINGLE} mode the date replaces the selection. In {@link Mode#RANGE} mode the
+   * first date starts a new range and the second date completes it. In {@link Mode#MULTIPLE}
+   * mode the date's selection is toggled.
+   */
+  public void select(LocalDate date) {
+    final int day = toEpochDay(date);
+    switch (mode) {
+      case SINGLE:
+        set(day, day);
+        break;
+
+      case RANGE:
+        if (rangeOpen) {
+          final int anchor = runs.first();
+          set(Math.min(anchor, day), Math.max(anchor, day));
+          rangeOpen = false;
+        } else {
+          set(day, day);
+          rangeOpen = true;
+        }
+        break;
+
+      case MULTIPLE:
+        if (runs.contains(day)) {
+          runs.remove(day, day);
+        } else {
+          runs.add(day, day);
+        }
+        notifyChanged(day, day);
+        break;
+    }
+  }
+
+  /**
+   * Select all dates from {@code start} through {@code end} inclusive. In {@link Mode#MULTIPLE}
+   * mode the dates are added to the selection; otherwise they replace it.
+   *
+   * @throws IllegalStateException in {@link Mode#SINGLE} mode, if the range spans several dates
+   */
+  public void selectRange(LocalDate start, LocalDate end) {
+    final int first = toEpochDay(start);
+    final int last = toEpochDay(end);
+    if (first > last) {
+      throw new IllegalArgumentException("start > end");
+    }
+    if (mode == Mode.SINGLE && first != last) {
+      throw new IllegalStateException("Cannot select a range in SINGLE mode");
+    }
+    if (mode == Mode.MULTIPLE) {
+      runs.add(first, last);
+      notifyChanged(first, last);
+    } else {
+      set(first, last);
+      rangeOpen = false;
+    }
+  }
+
+  /**
+   * Deselect all dates from {@code start} through {@code end} inclusive.
+   */
+  public void deselectRange(LocalDate start, LocalDate end) {
+    final int first = toEpochDay(start);
+    final int last = toEpochDay(end);
+    if (first > last) {
+      throw new IllegalArgumentException("start > end");
+    }
+    runs.remove(first, last);
+    rangeOpen = false;
+    notifyChanged(first, last);
+  }
+
+  public void clear() {
+    if (runs.count == 0) {
+      return;
+    }
+    final int first = runs.first();
+    final int last = runs.last();
+    runs.clear();
+    rangeOpen = false;
+    notifyChanged(first, last);
+  }
+
+  public boolean contains(LocalDate date) {
+    return runs.contains(toEpochDay(date));
+  }
+
+  public boolean isEmpty() {
+    return runs.count == 0;
+  }
+
+  /**
+   * Return the number of selected dates.
+   */
+  public int size() {
+    return DayRuns.days(runs.runs, runs.count);
+  }
+
+  /**
+   * Return the earliest selected date, or {@code null} if the selection is empty.
+   */
+  public LocalDate first() {
+    return runs.count == 0 ? null : LocalDate.ofEpochDay(runs.first());
+  }
+
+  /**
+   * Return the latest selected date, or {@code null} if the selection is empty.
+   */
+  public LocalDate last() {
+    return runs.count == 0 ? null : LocalDate.ofEpochDay(runs.last());
+  }
+
+  boolean contains(int epochDay) {
+    return runs.contains(epochDay);
+  }
+
+  /**
+   * Return a mask of the selected days among the {@code length} days starting at
+   * {@code firstDay}, in time proportional to the number of runs in that span.
+   */
+  int mask(int firstDay, int length) {
+    return runs.mask(firstDay, length);
+  }
+
+  boolean isRangeOpen() {
+    return rangeOpen;
+  }
+
+  /**
+   * Return the selected runs, encoded as described by {@link DayRuns#encode}.
+   */
+  byte[] encodeRuns() {
+    return DayRuns.encode(runs.runs, runs.count);
+  }
+
+  /**
+   * Replace the mode and selected dates with saved ones, without clearing the selection on a
+   * mode change.
+   */
+  void restore(Mode mode, boolean rangeOpen, byte[] encodedRuns) {
+    final int[] restored = DayRuns.decode(encodedRuns);
+    if (runs.count > 0) {
+      final int first = runs.first();
+      final int last = runs.last();
+      runs.clear();
+      notifyChanged(first, last);
+    }
+    this.mode = mode;
+    this.rangeOpen = rangeOpen;
+    if (restored.length > 0) {
+      runs.runs = restored;
+      runs.count = restored.length / 2;
+      notifyChanged(runs.first(), runs.last());
+    }
+  }
+
+  private void set(int first, int last) {
+    final boolean wasEmpty = runs.count == 0;
+    final int oldFirst = wasEmpty ? 0 : runs.first();
+    final int oldLast = wasEmpty ? 0 : runs.last();
+    runs.set(first, last);
+
+    // Report the old and new spans separately, as they may be far apart.
+    if (!wasEmpty) {
+      notifyChanged(oldFirst, oldLast);
+    }
+    notifyChanged(first, last);
+  }
+
+  private void notifyChanged(int firstDay, int lastDay) {
+    if (observer != null) {
+      observer.onSelectionChanged(firstDay, lastDay);
+    }
+  }
+
+  private static int toEpochDay(LocalDate date) {
+    return (int) date.toEpochDay();
+  }
+}
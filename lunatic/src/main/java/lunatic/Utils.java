@@ -20,6 +20,21 @@ class Utils {
     return Jdk8Methods.floorMod(dow.getValue() - weekDef.getFirstDayOfWeek().getValue(), 7);
   }
 
+  /**
+   * Returns a mask with the lowest {@code days} bits set, i.e. a mask of the first {@code days}
+   * days of a month.
+   */
+  static int daysMask(int days) {
+    return days <= 0 ? 0 : -1 >>> (32 - days);
+  }
+
+  /**
+   * Returns a mask of the days {@code first} through {@code last} inclusive, both 1-indexed.
+   */
+  static int daysMask(int first, int last) {
+    return daysMask(last) & ~daysMask(first - 1);
+  }
+
   private Utils() {
     throw new UnsupportedOperationException("No instances!");
   }
@@ -0,0 +1,133 @@
+package lunatic;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+import codes.tad.lunatic.R;
+import java.util.List;
+import java.util.Locale;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.format.TextStyle;
+
+/**
+ * Adapts the years spanned by a {@link DatePickerView}'s interval to {@link YearView}s.
+ * <p />
+ * Filter results, selection and today's date are read through the picker's {@link MonthAdapter},
+ * so the two adapters can be swapped without either recomputing anything.
+ */
+class YearAdapter extends RecyclerView.Adapter<YearAdapter.YearViewHolder> {
+  /** Payload for a rebind which only updates the days of a year's months. */
+  static final Object PAYLOAD_DAYS = new Object();
+
+  private final MonthAdapter months;
+  private final MonthStyle style;
+  private final YearView.Callback callback;
+  private String[] monthLabels;
+
+  YearAdapter(MonthAdapter months, MonthStyle style, Locale locale, Chronology chronology,
+      YearView.Callback callback) {
+    this.months = months;
+    this.style = style;
+    this.callback = callback;
+    setMonthLabels(locale, chronology);
+    setHasStableIds(true);
+  }
+
+  /**
+   * Change the locale or chronology of month labels; the caller notifies any change to bound
+   * years.
+   */
+  void setMonthLabels(Locale locale, Chronology chronology) {
+    monthLabels = FormatterCache.monthNames(locale, chronology, TextStyle.SHORT);
+  }
+
+  /**
+   * Return the position of the year containing a packed month.
+   */
+  int position(int month) {
+    return Months.year(month) - Months.year(months.getInterval().startMonth);
+  }
+
+  /**
+   * Return the packed month of January of the year at a position.
+   */
+  int month(int position) {
+    return Months.pack(Months.year(months.getInterval().startMonth) + position, 1);
+  }
+
+  /**
+   * Rebind the days of the years spanning the packed months {@code [startMonth, endMonth]}.
+   */
+  void notifyMonthsChanged(int startMonth, int endMonth) {
+    final int first = Math.max(0, position(startMonth));
+    final int last = Math.min(getItemCount() - 1, position(endMonth));
+    if (first <= last) {
+      notifyItemRangeChanged(first, last - first + 1, PAYLOAD_DAYS);
+    }
+  }
+
+  @Override public YearViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+    final YearView view = new YearView(parent.getContext(), style);
+    view.setLayoutParams(new RecyclerView.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+    view.setCallback(callback);
+    return new YearViewHolder(view);
+  }
+
+  @Override public void onBindViewHolder(YearViewHolder holder, int position) {
+    holder.yearView.bind(Months.year(month(position)), months.getInterval(), months.getToday(),
+        months.getWeekFields().getFirstDayOfWeek().getValue(), monthLabels);
+    bindDays(holder, position);
+  }
+
+  @Override
+  public void onBindViewHolder(YearViewHolder holder, int position, List<Object> payloads) {
+    for (int i = 0, size = payloads.size(); i < size; i++) {
+      if (payloads.get(i) != PAYLOAD_DAYS) {
+        onBindViewHolder(holder, position);
+        return;
+      }
+    }
+    if (payloads.isEmpty()) {
+      onBindViewHolder(holder, position);
+    } else {
+      bindDays(holder, position);
+    }
+  }
+
+  private void bindDays(YearViewHolder holder, int position) {
+    final Interval interval = months.getInterval();
+    final int january = month(position);
+    for (int i = 0; i < 12; i++) {
+      final int month = january + i;
+      if (month < interval.startMonth || month > interval.endMonth) {
+        holder.yearView.setMonthDays(i + 1, 0, 0);
+      } else {
+        holder.yearView.setMonthDays(i + 1, months.getEnabledDays(month),
+            months.getActivatedDays(month));
+      }
+    }
+  }
+
+  @Override public int getItemViewType(int position) {
+    // Distinct from every month layout, so that month views stay pooled while years are shown.
+    return R.id.lunatic_yearView;
+  }
+
+  @Override public long getItemId(int position) {
+    return month(position);
+  }
+
+  @Override public int getItemCount() {
+    final Interval interval = months.getInterval();
+    return Months.year(interval.endMonth) - Months.year(interval.startMonth) + 1;
+  }
+
+  static class YearViewHolder extends RecyclerView.ViewHolder {
+    final YearView yearView;
+
+    YearViewHolder(YearView yearView) {
+      super(yearView);
+      this.yearView = yearView;
+    }
+  }
+}
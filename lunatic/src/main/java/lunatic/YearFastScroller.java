@@ -0,0 +1,226 @@
+package lunatic;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Build;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Fast-scroll thumb for a {@link DatePickerView}, indexed by year.
+ * <p />
+ * Dragging the thumb jumps straight to the first month of the year under it, showing that year in
+ * a label next to the thumb, so that crossing decades does not bind every month in between. The
+ * thumb is only shown for intervals spanning at least {@link #MIN_MONTHS} months.
+ */
+final class YearFastScroller extends RecyclerView.ItemDecoration
+    implements RecyclerView.OnItemTouchListener {
+  static final int MIN_MONTHS = 24;
+
+  private static final int HIDE_DELAY_MS = 1500;
+
+  private static final float THUMB_WIDTH_DP = 6;
+  private static final float THUMB_HEIGHT_DP = 48;
+  private static final float TOUCH_WIDTH_DP = 32;
+  private static final float LABEL_HEIGHT_DP = 48;
+  private static final float LABEL_MARGIN_DP = 16;
+  private static final float LABEL_PADDING_DP = 16;
+  private static final float LABEL_TEXT_SIZE_SP = 20;
+
+  private final RecyclerView parent;
+  private final Paint thumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final RectF rect = new RectF();
+
+  private final float thumbWidth;
+  private final float thumbHeight;
+  private final float touchWidth;
+  private final float labelHeight;
+  private final float labelMargin;
+  private final float labelPadding;
+
+  private Interval interval;
+  private boolean visible;
+  private boolean dragging;
+  private float dragY;
+
+  // The year under the thumb while dragging, and its label.
+  private int year;
+  private String yearLabel;
+
+  YearFastScroller(RecyclerView parent, int color) {
+    this.parent = parent;
+
+    Resources res = parent.getResources();
+    thumbWidth = dp(res, THUMB_WIDTH_DP);
+    thumbHeight = dp(res, THUMB_HEIGHT_DP);
+    touchWidth = dp(res, TOUCH_WIDTH_DP);
+    labelHeight = dp(res, LABEL_HEIGHT_DP);
+    labelMargin = dp(res, LABEL_MARGIN_DP);
+    labelPadding = dp(res, LABEL_PADDING_DP);
+
+    thumbPaint.setColor(color);
+    labelPaint.setColor(0xffffffff);
+    labelPaint.setTextAlign(Paint.Align.CENTER);
+    labelPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+        LABEL_TEXT_SIZE_SP, res.getDisplayMetrics()));
+  }
+
+  void attach() {
+    parent.addItemDecoration(this);
+    parent.addOnItemTouchListener(this);
+    parent.addOnScrollListener(scrollListener);
+  }
+
+  void detach() {
+    parent.removeItemDecoration(this);
+    parent.removeOnItemTouchListener(this);
+    parent.removeOnScrollListener(scrollListener);
+    parent.removeCallbacks(hideRunnable);
+  }
+
+  void setInterval(Interval interval) {
+    this.interval = interval;
+  }
+
+  @Override public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+    if (!visible || !isScrollable()) {
+      return;
+    }
+
+    final float top = thumbTop();
+    final float left = isRtl() ? 0 : parent.getWidth() - thumbWidth;
+    rect.set(left, top, left + thumbWidth, top + thumbHeight);
+    c.drawRoundRect(rect, thumbWidth / 2, thumbWidth / 2, thumbPaint);
+
+    if (dragging && yearLabel != null) {
+      final float width = labelPaint.measureText(yearLabel) + labelPadding * 2;
+      final float labelTop = Math.max(0, top + (thumbHeight - labelHeight) / 2);
+      final float labelLeft = isRtl()
+          ? thumbWidth + labelMargin
+          : parent.getWidth() - thumbWidth - labelMargin - width;
+      rect.set(labelLeft, labelTop, labelLeft + width, labelTop + labelHeight);
+      c.drawRoundRect(rect, labelHeight / 2, labelHeight / 2, thumbPaint);
+      c.drawText(yearLabel, rect.centerX(),
+          rect.centerY() - (labelPaint.descent() + labelPaint.ascent()) / 2, labelPaint);
+    }
+  }
+
+  @Override public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+    if (e.getActionMasked() != MotionEvent.ACTION_DOWN || !visible || !isScrollable()) {
+      return false;
+    }
+    final float x = e.getX();
+    final float y = e.getY();
+    final boolean inTrack = isRtl() ? x <= touchWidth : x >= rv.getWidth() - touchWidth;
+    final float top = thumbTop();
+    if (!inTrack || y < top || y > top + thumbHeight) {
+      return false;
+    }
+
+    dragging = true;
+    year = Integer.MIN_VALUE;
+    rv.stopScroll();
+    rv.removeCallbacks(hideRunnable);
+    dragTo(y);
+    return true;
+  }
+
+  @Override public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+    switch (e.getActionMasked()) {
+      case MotionEvent.ACTION_MOVE:
+        dragTo(e.getY());
+        break;
+      case MotionEvent.ACTION_UP:
+      case MotionEvent.ACTION_CANCEL:
+        dragging = false;
+        yearLabel = null;
+        rv.postDelayed(hideRunnable, HIDE_DELAY_MS);
+        rv.invalidate();
+        break;
+    }
+  }
+
+  @Override public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+  }
+
+  private void dragTo(float y) {
+    final float track = parent.getHeight() - thumbHeight;
+    dragY = Math.max(0, Math.min(y - thumbHeight / 2, track));
+
+    // Index by year: snap to the first month of the year under the thumb.
+    final float fraction = track > 0 ? dragY / track : 0;
+    final int month = interval.month(Math.round(fraction * (interval.months() - 1)));
+    final int year = Months.year(month);
+    if (year != this.year) {
+      this.year = year;
+      yearLabel = FormatterCache.yearFormatter(interval.chronology)
+          .format(interval.chronology.dateEpochDay(interval.firstDay(month)));
+      final int position = Math.max(0, interval.position(Months.pack(year, 1)));
+      ((LinearLayoutManager) parent.getLayoutManager()).scrollToPositionWithOffset(position, 0);
+    }
+    parent.invalidate();
+  }
+
+  private float thumbTop() {
+    if (dragging) {
+      return dragY;
+    }
+    final LinearLayoutManager layoutManager = (LinearLayoutManager) parent.getLayoutManager();
+    final int first = layoutManager.findFirstVisibleItemPosition();
+    if (first == RecyclerView.NO_POSITION) {
+      return 0;
+    }
+
+    // Account for how far the first month is scrolled off, so that the thumb moves smoothly.
+    float position = first;
+    final View child = layoutManager.findViewByPosition(first);
+    if (child != null && child.getHeight() > 0) {
+      position -= (float) child.getTop() / child.getHeight();
+    }
+    final float fraction = Math.min(1, position / (interval.months() - 1));
+    return fraction * (parent.getHeight() - thumbHeight);
+  }
+
+  private boolean isScrollable() {
+    return interval != null && interval.months() >= MIN_MONTHS
+        && parent.getHeight() > thumbHeight;
+  }
+
+  private boolean isRtl() {
+    return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1
+        && parent.getLayoutDirection() == View.LAYOUT_DIRECTION_RTL;
+  }
+
+  private static float dp(Resources res, float value) {
+    return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, res.getDisplayMetrics());
+  }
+
+  private final RecyclerView.OnScrollListener scrollListener =
+      new RecyclerView.OnScrollListener() {
+        @Override public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+          if (dy == 0 && !visible) {
+            return;
+          }
+          visible = true;
+          recyclerView.removeCallbacks(hideRunnable);
+          if (!dragging) {
+            recyclerView.postDelayed(hideRunnable, HIDE_DELAY_MS);
+          }
+        }
+      };
+
+  private final Runnable hideRunnable = new Runnable() {
+    @Override public void run() {
+      if (!dragging) {
+        visible = false;
+        parent.invalidate();
+      }
+    }
+  };
+}
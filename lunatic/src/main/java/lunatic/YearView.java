@@ -0,0 +1,294 @@
+package lunatic;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.text.TextPaint;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+import org.threeten.bp.chrono.Chronology;
+
+/**
+ * Overview of a year as twelve miniature months, all drawn by this one view in a single pass.
+ * <p />
+ * Months are laid out in a 3×4 {@link Grid}, each with a 6×7 grid of day cells sized to fit the
+ * view's width. Days are colored by the same states as in a {@link MonthView}; tapping a month
+ * reports it to the view's callback.
+ */
+final class YearView extends View {
+  interface Callback {
+    /**
+     * Called when a month is tapped, with the month packed as described by {@link Months}.
+     */
+    void onMonthClicked(int month);
+  }
+
+  private static final int MONTH_COLS = 3;
+  private static final int MONTH_ROWS = 4;
+
+  /** Text sizes, as fractions of a day cell's size. */
+  private static final float DAY_TEXT_SCALE = 0.5f;
+  private static final float LABEL_TEXT_SCALE = 0.8f;
+
+  private static final int DAY_STATE_ENABLED = MonthView.DAY_STATE_ENABLED;
+  private static final int DAY_STATE_DISABLED = MonthView.DAY_STATE_DISABLED;
+  private static final int DAY_STATE_TODAY = MonthView.DAY_STATE_TODAY;
+  private static final int DAY_STATE_ACTIVATED = MonthView.DAY_STATE_ACTIVATED;
+
+  private final MonthStyle style;
+  private final TextPaint labelPaint;
+  private final TextPaint dayPaint;
+  private float labelOffsetY;
+  private float dayOffsetY;
+
+  private final Rect bounds = new Rect();
+  private final Rect rect = new Rect();
+  private Grid monthGrid;
+  private Grid dayGrid;
+  private int labelHeight;
+  private final int headerHeight;
+
+  private Callback callback;
+
+  private int year;
+  private Chronology yearChronology;
+  private String yearLabel;
+  private String[] monthLabels;
+  /** Today, as an epoch day. */
+  private int now;
+
+  // Per month of the year, from January.
+  private final int[] firstDays = new int[12];
+  private final int[] offsets = new int[12];
+  private final int[] lengths = new int[12];
+  private final int[] enabledDays = new int[12];
+  private final int[] activatedDays = new int[12];
+
+  /** Month of the year under an ongoing touch, from 1, or 0. */
+  private int pressedMonth;
+
+  YearView(Context context, MonthStyle style) {
+    super(context);
+    this.style = style;
+    labelPaint = new TextPaint(style.weekdayPaint);
+    dayPaint = new TextPaint(style.dayPaint);
+    headerHeight = style.monthHeight;
+  }
+
+  void setCallback(Callback callback) {
+    this.callback = callback;
+  }
+
+  /**
+   * Bind a year of an interval's chronology, given today's date as an epoch day. The days of each
+   * month are set afterwards with {@link #setMonthDays}.
+   *
+   * @param monthLabels the names of the months of the interval's chronology, starting with its
+   *     first month
+   */
+  void bind(int year, Interval interval, int now, int firstDayOfWeek, String[] monthLabels) {
+    if (year != this.year || interval.chronology != yearChronology) {
+      this.year = year;
+      yearChronology = interval.chronology;
+      // The year of era, as in the month headers, rather than the proleptic year.
+      yearLabel = FormatterCache.yearFormatter(interval.chronology)
+          .format(interval.chronology.dateEpochDay(interval.firstDay(Months.pack(year, 1))));
+    }
+    this.now = now;
+    this.monthLabels = monthLabels;
+    for (int i = 0; i < 12; i++) {
+      final int month = Months.pack(year, i + 1);
+      firstDays[i] = interval.firstDay(month);
+      offsets[i] = interval.startOfWeekOffset(month, firstDayOfWeek);
+      lengths[i] = interval.length(month);
+    }
+    pressedMonth = 0;
+    invalidate();
+  }
+
+  /**
+   * Set the enabled and activated days of a month of the year, from 1.
+   */
+  void setMonthDays(int monthOfYear, int enabledDays, int activatedDays) {
+    final int i = monthOfYear - 1;
+    if (this.enabledDays[i] != enabledDays || this.activatedDays[i] != activatedDays) {
+      this.enabledDays[i] = enabledDays;
+      this.activatedDays[i] = activatedDays;
+      invalidateMonth(monthOfYear);
+    }
+  }
+
+  private void invalidateMonth(int monthOfYear) {
+    if (monthGrid == null) {
+      invalidate();
+      return;
+    }
+    final int i = monthOfYear - 1;
+    monthGrid.rect(i % MONTH_COLS, i / MONTH_COLS, i % MONTH_COLS, i / MONTH_COLS, rect);
+    rect.offset(bounds.left, bounds.top + headerHeight);
+    invalidate(rect);
+  }
+
+  @Override protected int getSuggestedMinimumWidth() {
+    return getPaddingLeft() + getPaddingRight() + style.dayGrid.width();
+  }
+
+  @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    final int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+    // Square day cells, with half a cell of margin on either side of each month.
+    final int cell = (width - getPaddingLeft() - getPaddingRight()) / (MONTH_COLS * 8);
+    setMeasuredDimension(width, resolveSize(headerHeight
+        + MONTH_ROWS * monthHeight(cell)
+        + getPaddingTop()
+        + getPaddingBottom(), heightMeasureSpec));
+  }
+
+  private static int monthHeight(int cell) {
+    // The label takes two rows, and half a row separates months vertically.
+    return cell * 2 + cell * 6 + cell / 2;
+  }
+
+  @Override protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+    super.onSizeChanged(w, h, oldw, oldh);
+
+    bounds.set(getPaddingLeft(), getPaddingTop(), w - getPaddingRight(), h - getPaddingBottom());
+    final int cell = bounds.width() / (MONTH_COLS * 8);
+    monthGrid = new Grid(MONTH_ROWS, MONTH_COLS, bounds.width() / MONTH_COLS, monthHeight(cell));
+    dayGrid = new Grid(6, 7, cell, cell);
+    labelHeight = cell * 2;
+
+    dayPaint.setTextSize(cell * DAY_TEXT_SCALE);
+    labelPaint.setTextSize(cell * LABEL_TEXT_SCALE);
+    dayOffsetY = textOffsetY(dayPaint);
+    labelOffsetY = textOffsetY(labelPaint);
+  }
+
+  private static float textOffsetY(Paint paint) {
+    return -((paint.ascent() - paint.descent()) / 2);
+  }
+
+  @Override protected void onDraw(Canvas canvas) {
+    if (monthLabels == null || monthGrid == null) {
+      return;
+    }
+
+    canvas.drawText(yearLabel, bounds.centerX(),
+        bounds.top + headerHeight / 2 + style.textOffsetY[MonthStyle.MONTH_PAINT],
+        style.monthPaint);
+
+    final int top = bounds.top + headerHeight;
+    final float radius = dayGrid.cellWidth() / 2f;
+    final int dayLeft = (monthGrid.cellWidth() - dayGrid.width()) / 2;
+
+    if (pressedMonth != 0) {
+      final int i = pressedMonth - 1;
+      monthGrid.rect(i % MONTH_COLS, i / MONTH_COLS, i % MONTH_COLS, i / MONTH_COLS, rect);
+      rect.offset(bounds.left, top);
+      canvas.drawRect(rect, style.dayHighlightPaint);
+    }
+
+    // Month labels and selection circles first, as both need their own paints.
+    for (int i = 0; i < 12; i++) {
+      final int left = bounds.left + monthGrid.left(i % MONTH_COLS);
+      final int monthTop = top + monthGrid.top(i / MONTH_COLS);
+      canvas.drawText(monthLabels[i], left + monthGrid.cellWidth() / 2f,
+          monthTop + labelHeight / 2f + labelOffsetY, labelPaint);
+
+      int days = activatedDays[i] & enabledDays[i] & Utils.daysMask(lengths[i]);
+      while (days != 0) {
+        final int index = Integer.numberOfTrailingZeros(days);
+        days &= ~(1 << index);
+        final int cell = offsets[i] + index;
+        canvas.drawCircle(left + dayLeft + dayGrid.centerX(cell % 7),
+            monthTop + labelHeight + dayGrid.centerY(cell / 7), radius, style.daySelectorPaint);
+      }
+    }
+
+    // Then day numbers grouped by state, so the paint color changes at most once per state.
+    for (int state = 0; state < MonthView.DAY_STATE_COUNT; state++) {
+      dayPaint.setColor(style.dayColors[state]);
+      for (int i = 0; i < 12; i++) {
+        final int left = bounds.left + monthGrid.left(i % MONTH_COLS) + dayLeft;
+        final int dayTop = top + monthGrid.top(i / MONTH_COLS) + labelHeight;
+        for (int day = 1; day <= lengths[i]; day++) {
+          if (dayState(i, day, firstDays[i] + day - 1) != state) {
+            continue;
+          }
+          final int cell = offsets[i] + day - 1;
+          final char[] label = MonthView.DAY_NUMBERS[day - 1];
+          canvas.drawText(label, 0, label.length, left + dayGrid.centerX(cell % 7),
+              dayTop + dayGrid.centerY(cell / 7) + dayOffsetY, dayPaint);
+        }
+      }
+    }
+  }
+
+  private int dayState(int month, int day, int epochDay) {
+    final int bit = 1 << (day - 1);
+    if ((enabledDays[month] & bit) == 0) {
+      return epochDay == now ? DAY_STATE_TODAY : DAY_STATE_DISABLED;
+    }
+    if ((activatedDays[month] & bit) != 0) {
+      return DAY_STATE_ACTIVATED;
+    }
+    return epochDay == now ? DAY_STATE_TODAY : DAY_STATE_ENABLED;
+  }
+
+  @Override public boolean onTouchEvent(MotionEvent event) {
+    if (monthGrid == null || !isEnabled()) {
+      return false;
+    }
+
+    final int month = monthAt(event.getX(), event.getY());
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        if (month == 0) {
+          return false;
+        }
+        setPressedMonth(month);
+        return true;
+      case MotionEvent.ACTION_MOVE:
+        if (month != pressedMonth) {
+          setPressedMonth(0);
+        }
+        return true;
+      case MotionEvent.ACTION_UP:
+        if (pressedMonth != 0 && month == pressedMonth) {
+          setPressedMonth(0);
+          if (callback != null) {
+            playSoundEffect(SoundEffectConstants.CLICK);
+            callback.onMonthClicked(Months.pack(year, month));
+          }
+        }
+        return true;
+      case MotionEvent.ACTION_CANCEL:
+        setPressedMonth(0);
+        return true;
+    }
+    return false;
+  }
+
+  private void setPressedMonth(int month) {
+    if (month != pressedMonth) {
+      final int old = pressedMonth;
+      pressedMonth = month;
+      if (old != 0) {
+        invalidateMonth(old);
+      }
+      if (month != 0) {
+        invalidateMonth(month);
+      }
+    }
+  }
+
+  /**
+   * Return the month of the year at a point in this view, from 1, or 0 if there is none.
+   */
+  private int monthAt(float x, float y) {
+    final int col = monthGrid.col((int) x - bounds.left);
+    final int row = monthGrid.row((int) y - bounds.top - headerHeight);
+    return col < 0 || row < 0 ? 0 : row * MONTH_COLS + col + 1;
+  }
+}
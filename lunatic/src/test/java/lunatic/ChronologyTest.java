@@ -0,0 +1,137 @@
+package lunatic;
+
+import java.util.Locale;
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.chrono.ChronoLocalDate;
+import org.threeten.bp.chrono.Chronology;
+import org.threeten.bp.chrono.HijrahChronology;
+import org.threeten.bp.chrono.HijrahDate;
+import org.threeten.bp.chrono.IsoChronology;
+import org.threeten.bp.chrono.JapaneseChronology;
+import org.threeten.bp.chrono.JapaneseDate;
+import org.threeten.bp.chrono.JapaneseEra;
+import org.threeten.bp.chrono.MinguoChronology;
+import org.threeten.bp.chrono.ThaiBuddhistChronology;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.format.TextStyle;
+import org.threeten.bp.temporal.ChronoField;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Months of non-ISO chronologies, checked against ThreeTen's own date conversions.
+ */
+public final class ChronologyTest {
+  private static final LocalDate START = LocalDate.of(1990, 1, 1);
+  private static final LocalDate END = LocalDate.of(2030, 12, 31);
+
+  @Test public void hijrahMonths() {
+    assertMonthsMatch(HijrahChronology.INSTANCE);
+  }
+
+  @Test public void japaneseMonths() {
+    assertMonthsMatch(JapaneseChronology.INSTANCE);
+  }
+
+  @Test public void thaiBuddhistMonths() {
+    assertMonthsMatch(ThaiBuddhistChronology.INSTANCE);
+  }
+
+  @Test public void minguoMonths() {
+    assertMonthsMatch(MinguoChronology.INSTANCE);
+  }
+
+  @Test public void hijrahHeaderUsesHijrahMonthNames() {
+    final DateTimeFormatter formatter =
+        FormatterCache.headerFormatter(Locale.US, "MMMM yyyy", HijrahChronology.INSTANCE);
+    assertEquals("Ramadan 1437", formatter.format(HijrahDate.of(1437, 9, 1)));
+    assertEquals("Rabiʻ I 1438", formatter.format(LocalDate.of(2016, 12, 10)));
+
+    final DateTimeFormatter arabic =
+        FormatterCache.headerFormatter(new Locale("ar"), "LLLL y", HijrahChronology.INSTANCE);
+    assertEquals("رمضان 1437", arabic.format(HijrahDate.of(1437, 9, 1)));
+  }
+
+  @Test public void japaneseHeaderUsesYearOfEra() {
+    final DateTimeFormatter formatter =
+        FormatterCache.headerFormatter(Locale.US, "MMMM yyyy", JapaneseChronology.INSTANCE);
+    assertEquals("December 28", formatter.format(JapaneseDate.of(JapaneseEra.HEISEI, 28, 12, 1)));
+  }
+
+  @Test public void yearLabelsUseYearOfEra() {
+    final LocalDate day = LocalDate.of(2016, 12, 10);
+    assertYearLabel("2016", IsoChronology.INSTANCE, day);
+    assertYearLabel("28", JapaneseChronology.INSTANCE, day);
+    assertYearLabel("105", MinguoChronology.INSTANCE, day);
+    assertYearLabel("1438", HijrahChronology.INSTANCE, day);
+  }
+
+  @Test public void headerKeepsQuotedTextAndOtherFields() {
+    final DateTimeFormatter formatter = FormatterCache.headerFormatter(Locale.US,
+        "'Month ''M'' of' MMM, yy", HijrahChronology.INSTANCE);
+    assertEquals("Month 'M' of Ram., 1437", formatter.format(HijrahDate.of(1437, 9, 1)));
+  }
+
+  @Test public void hijrahHeaders() {
+    assertHeadersMatch(HijrahChronology.INSTANCE);
+  }
+
+  @Test public void japaneseHeaders() {
+    assertHeadersMatch(JapaneseChronology.INSTANCE);
+  }
+
+  @Test public void monthNamesAreGregorianOutsideOfHijrah() {
+    final String[] names =
+        FormatterCache.monthNames(Locale.US, ThaiBuddhistChronology.INSTANCE, TextStyle.SHORT);
+    assertEquals("Jan", names[0]);
+    assertEquals("Dec", names[11]);
+    assertEquals("Muh.",
+        FormatterCache.monthNames(Locale.US, HijrahChronology.INSTANCE, TextStyle.SHORT)[0]);
+  }
+
+  private static void assertYearLabel(String expected, Chronology chronology, LocalDate day) {
+    assertEquals(expected,
+        FormatterCache.yearFormatter(chronology).format(chronology.date(day)));
+  }
+
+  /**
+   * Assert that every packed month of an interval starts on the first day of the chronology's
+   * month, and has the same year, month and length.
+   */
+  private static void assertMonthsMatch(Chronology chronology) {
+    final Interval interval = new Interval(START, END, chronology);
+    for (int month = interval.startMonth; month <= interval.endMonth; month++) {
+      final ChronoLocalDate date = chronology.dateEpochDay(interval.firstDay(month));
+      final String message = chronology.getId() + " " + date;
+      assertEquals(message, 1, date.getLong(ChronoField.DAY_OF_MONTH));
+      assertEquals(message, Months.year(month), date.getLong(ChronoField.YEAR));
+      assertEquals(message, Months.monthOfYear(month), date.getLong(ChronoField.MONTH_OF_YEAR));
+      assertEquals(message, date.lengthOfMonth(), interval.length(month));
+    }
+
+    // Every day maps back to the month containing it.
+    for (LocalDate day = START; !day.isAfter(END); day = day.plusDays(1)) {
+      final ChronoLocalDate date = chronology.date(day);
+      assertEquals(day.toString(),
+          Months.pack(date.get(ChronoField.YEAR), date.get(ChronoField.MONTH_OF_YEAR)),
+          interval.monthOf((int) day.toEpochDay()));
+    }
+  }
+
+  /**
+   * Assert that month headers show the chronology's month name and year of era.
+   */
+  private static void assertHeadersMatch(Chronology chronology) {
+    final Interval interval = new Interval(START, END, chronology);
+    final DateTimeFormatter formatter =
+        FormatterCache.headerFormatter(Locale.US, "MMMM yyyy", chronology);
+    final String[] names = MonthNames.of(chronology, Locale.US, TextStyle.FULL);
+    for (int month = interval.startMonth; month <= interval.endMonth; month++) {
+      final ChronoLocalDate date = chronology.dateEpochDay(interval.firstDay(month));
+      final MonthModel model = MonthModel.compute(month, interval, 0, 1, formatter, false);
+      assertEquals(names[date.get(ChronoField.MONTH_OF_YEAR) - 1] + " "
+          + date.getLong(ChronoField.YEAR_OF_ERA), model.label);
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package lunatic;
+
+import java.util.Random;
+import org.junit.Test;
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.threeten.bp.DayOfWeek.FRIDAY;
+import static org.threeten.bp.DayOfWeek.MONDAY;
+import static org.threeten.bp.DayOfWeek.SATURDAY;
+import static org.threeten.bp.DayOfWeek.SUNDAY;
+import static org.threeten.bp.DayOfWeek.THURSDAY;
+import static org.threeten.bp.DayOfWeek.TUESDAY;
+import static org.threeten.bp.DayOfWeek.WEDNESDAY;
+
+public final class DateRulesTest {
+  private static final YearMonth DECEMBER = YearMonth.of(2016, 12);
+
+  @Test public void allAndNoneAreIdentities() {
+    final DateRules weekend = DateRules.daysOfWeek(SATURDAY, SUNDAY);
+    assertSame(weekend, weekend.and(DateRules.all()));
+    assertSame(weekend, DateRules.all().and(weekend));
+    assertSame(weekend, weekend.or(DateRules.none()));
+    assertSame(weekend, DateRules.none().or(weekend));
+    assertSame(DateRules.none(), weekend.and(DateRules.none()));
+    assertSame(DateRules.all(), weekend.or(DateRules.all()));
+  }
+
+  @Test public void daysOfWeekFold() {
+    final DateRules weekdays = DateRules.daysOfWeek(MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY);
+    final DateRules weekend = DateRules.daysOfWeek(SATURDAY, SUNDAY);
+    assertSame(DateRules.all(), weekdays.or(weekend));
+    assertSame(DateRules.none(), weekdays.and(weekend));
+    assertSame(DateRules.none(), DateRules.daysOfWeek(DayOfWeek.values()).not());
+    assertSame(DateRules.all(), DateRules.daysOfWeek().not());
+    assertMatches(weekend, weekdays.not());
+  }
+
+  @Test public void daysOfMonthFold() {
+    assertSame(DateRules.none(), DateRules.daysOfMonth(1).and(DateRules.daysOfMonth(2)));
+    assertSame(DateRules.all(), DateRules.daysOfMonth().not());
+    // December 2016 starts on a Thursday.
+    assertEquals(Utils.daysMask(1, 2),
+        DateRules.daysOfMonth(1, 2).enabledMask(DECEMBER) & Utils.daysMask(31));
+    assertEquals(Utils.daysMask(1, 1),
+        DateRules.daysOfMonth(1, 2).and(DateRules.daysOfWeek(THURSDAY)).enabledMask(DECEMBER)
+            & Utils.daysMask(31));
+  }
+
+  @Test public void daysOfMonthRejectsInvalidDays() {
+    try {
+      DateRules.daysOfMonth(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      DateRules.daysOfMonth(32);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test public void betweenRejectsReversedRange() {
+    try {
+      DateRules.between(LocalDate.of(2016, 12, 2), LocalDate.of(2016, 12, 1));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test public void rangesFoldWhenOverlappingOrAdjacent() {
+    final DateRules first = between(2016, 12, 1, 2016, 12, 10);
+    final DateRules second = between(2016, 12, 11, 2016, 12, 20);
+    assertMatches(between(2016, 12, 1, 2016, 12, 20), first.or(second));
+    assertMatches(between(2016, 12, 5, 2016, 12, 10),
+        first.and(between(2016, 12, 5, 2016, 12, 31)));
+    assertSame(DateRules.none(), first.and(second));
+  }
+
+  @Test public void rangeMasksClipToMonth() {
+    final DateRules rules = between(2016, 11, 28, 2017, 1, 2);
+    assertEquals(Utils.daysMask(28, 30),
+        rules.enabledMask(YearMonth.of(2016, 11)) & Utils.daysMask(30));
+    assertEquals(Utils.daysMask(1, 31), rules.enabledMask(DECEMBER) & Utils.daysMask(31));
+    assertEquals(Utils.daysMask(1, 2),
+        rules.enabledMask(YearMonth.of(2017, 1)) & Utils.daysMask(31));
+    assertEquals(0, rules.enabledMask(YearMonth.of(2017, 2)));
+  }
+
+  @Test public void openRangesReachTheLimitsOfInt() {
+    final LocalDate day = LocalDate.of(2016, 12, 10);
+    final DateRules after = DateRules.onOrAfter(day);
+    final DateRules before = DateRules.onOrBefore(day);
+
+    assertEquals(Utils.daysMask(10, 31), after.enabledMask(DECEMBER) & Utils.daysMask(31));
+    assertEquals(Utils.daysMask(1, 10), before.enabledMask(DECEMBER) & Utils.daysMask(31));
+
+    final YearMonth far = YearMonth.of(1000000, 6);
+    assertEquals(Utils.daysMask(30), after.enabledMask(far) & Utils.daysMask(30));
+    assertEquals(0, before.enabledMask(far));
+    final YearMonth farBefore = YearMonth.of(-1000000, 6);
+    assertEquals(0, after.enabledMask(farBefore));
+    assertEquals(Utils.daysMask(30), before.enabledMask(farBefore) & Utils.daysMask(30));
+
+    assertMatches(DateRules.all(), after.or(before));
+    assertMatches(DateRules.none(), after.not().and(before.not()));
+  }
+
+  @Test public void masksFollowMonthLengths() {
+    final DateRules last = DateRules.daysOfMonth(29, 30, 31);
+    assertTrue(last.isEnabled(LocalDate.of(2016, 2, 29)));
+    assertEquals(Utils.daysMask(29, 29),
+        last.enabledMask(YearMonth.of(2016, 2)) & Utils.daysMask(29));
+    assertEquals(0, last.enabledMask(YearMonth.of(2017, 2)) & Utils.daysMask(28));
+    assertEquals(Utils.daysMask(29, 30),
+        last.enabledMask(YearMonth.of(2016, 4)) & Utils.daysMask(30));
+
+    final DateRules leapDay = between(2016, 2, 28, 2016, 3, 1);
+    assertEquals(Utils.daysMask(28, 29),
+        leapDay.enabledMask(YearMonth.of(2016, 2)) & Utils.daysMask(29));
+    assertEquals(Utils.daysMask(1, 1),
+        leapDay.enabledMask(YearMonth.of(2016, 3)) & Utils.daysMask(31));
+  }
+
+  @Test public void inSetFolds() {
+    final DateSet a = DateSet.range(LocalDate.of(2016, 12, 1), LocalDate.of(2016, 12, 10));
+    final DateSet b = DateSet.range(LocalDate.of(2016, 12, 20), LocalDate.of(2016, 12, 25));
+    assertSame(DateRules.none(), DateRules.in(DateSet.empty()));
+    assertSame(DateRules.none(), DateRules.in(a).and(DateRules.in(b)));
+    assertMatches(DateRules.in(a.union(b)), DateRules.in(a).or(DateRules.in(b)));
+  }
+
+  @Test public void notIsAnInvolution() {
+    final DateRules rules = between(2016, 12, 1, 2016, 12, 10)
+        .or(DateRules.daysOfWeek(SUNDAY));
+    assertSame(rules, rules.not().not());
+  }
+
+  @Test public void randomRulesMatchDayByDayEvaluation() {
+    final Random random = new Random(18);
+    for (int round = 0; round < 300; round++) {
+      final Rule rule = randomRule(random, 4);
+      for (int month = 0; month < 24; month++) {
+        final YearMonth yearMonth = YearMonth.of(2015, 1).plusMonths(month);
+        final int mask = rule.rules.enabledMask(yearMonth);
+        for (int day = 1; day <= yearMonth.lengthOfMonth(); day++) {
+          final LocalDate date = yearMonth.atDay(day);
+          final boolean expected = rule.matches(date);
+          assertEquals(date.toString(), expected, (mask & (1 << (day - 1))) != 0);
+          assertEquals(date.toString(), expected, rule.rules.isEnabled(date));
+        }
+      }
+    }
+  }
+
+  /** Assert that two rules match the same dates, over a few years either side of 2016. */
+  private static void assertMatches(DateRules expected, DateRules actual) {
+    for (int month = 0; month < 60; month++) {
+      final YearMonth yearMonth = YearMonth.of(2014, 1).plusMonths(month);
+      final int days = Utils.daysMask(yearMonth.lengthOfMonth());
+      assertEquals(yearMonth.toString(), expected.enabledMask(yearMonth) & days,
+          actual.enabledMask(yearMonth) & days);
+    }
+  }
+
+  private static DateRules between(int startYear, int startMonth, int startDay, int endYear,
+      int endMonth, int endDay) {
+    return DateRules.between(LocalDate.of(startYear, startMonth, startDay),
+        LocalDate.of(endYear, endMonth, endDay));
+  }
+
+  private static Rule randomRule(Random random, int depth) {
+    final int kind = random.nextInt(depth > 0 ? 8 : 5);
+    switch (kind) {
+      case 0: {
+        final boolean[] days = new boolean[8];
+        final int count = random.nextInt(8);
+        final DayOfWeek[] values = new DayOfWeek[count];
+        for (int i = 0; i < count; i++) {
+          values[i] = DayOfWeek.of(1 + random.nextInt(7));
+          days[values[i].getValue()] = true;
+        }
+        return new Rule(DateRules.daysOfWeek(values)) {
+          @Override boolean matches(LocalDate date) {
+            return days[date.getDayOfWeek().getValue()];
+          }
+        };
+      }
+      case 1: {
+        final boolean[] days = new boolean[32];
+        final int count = random.nextInt(10);
+        final int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+          values[i] = 1 + random.nextInt(31);
+          days[values[i]] = true;
+        }
+        return new Rule(DateRules.daysOfMonth(values)) {
+          @Override boolean matches(LocalDate date) {
+            return days[date.getDayOfMonth()];
+          }
+        };
+      }
+      case 2: {
+        final LocalDate start = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(730));
+        final LocalDate end = start.plusDays(random.nextInt(90));
+        return new Rule(DateRules.between(start, end)) {
+          @Override boolean matches(LocalDate date) {
+            return !date.isBefore(start) && !date.isAfter(end);
+          }
+        };
+      }
+      case 3: {
+        final LocalDate day = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(730));
+        final boolean after = random.nextBoolean();
+        return new Rule(after ? DateRules.onOrAfter(day) : DateRules.onOrBefore(day)) {
+          @Override boolean matches(LocalDate date) {
+            return after ? !date.isBefore(day) : !date.isAfter(day);
+          }
+        };
+      }
+      case 4: {
+        final DateSet.Builder builder = DateSet.builder();
+        for (int i = random.nextInt(6); i > 0; i--) {
+          final LocalDate start = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(730));
+          builder.add(start, start.plusDays(random.nextInt(10)));
+        }
+        final DateSet set = builder.build();
+        return new Rule(DateRules.in(set)) {
+          @Override boolean matches(LocalDate date) {
+            return set.contains(date);
+          }
+        };
+      }
+      case 5: {
+        final Rule a = randomRule(random, depth - 1);
+        final Rule b = randomRule(random, depth - 1);
+        return new Rule(a.rules.and(b.rules)) {
+          @Override boolean matches(LocalDate date) {
+            return a.matches(date) && b.matches(date);
+          }
+        };
+      }
+      case 6: {
+        final Rule a = randomRule(random, depth - 1);
+        final Rule b = randomRule(random, depth - 1);
+        return new Rule(a.rules.or(b.rules)) {
+          @Override boolean matches(LocalDate date) {
+            return a.matches(date) || b.matches(date);
+          }
+        };
+      }
+      default: {
+        final Rule a = randomRule(random, depth - 1);
+        return new Rule(a.rules.not()) {
+          @Override boolean matches(LocalDate date) {
+            return !a.matches(date);
+          }
+        };
+      }
+    }
+  }
+
+  /** A rule paired with a day-by-day model of the dates it should match. */
+  private abstract static class Rule {
+    final DateRules rules;
+
+    Rule(DateRules rules) {
+      this.rules = rules;
+    }
+
+    abstract boolean matches(LocalDate date);
+  }
+}
@@ -0,0 +1,169 @@
+package lunatic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class DateSetTest {
+  private static final LocalDate DAY = LocalDate.of(2016, 12, 10);
+
+  @Test public void builderMergesOverlappingAndAdjacentDates() {
+    final DateSet set = DateSet.builder()
+        .add(DAY.plusDays(5), DAY.plusDays(9))
+        .add(DAY)
+        .add(DAY.plusDays(1), DAY.plusDays(4))
+        .add(DAY.plusDays(20))
+        .add(DAY.plusDays(7), DAY.plusDays(8))
+        .build();
+    assertEquals(2, set.count);
+    assertEquals(11, set.size());
+    assertEquals(DAY, set.first());
+    assertEquals(DAY.plusDays(20), set.last());
+    assertEquals(DateSet.range(DAY, DAY.plusDays(9)).union(DateSet.of(DAY.plusDays(20))), set);
+  }
+
+  @Test public void emptySet() {
+    assertSame(DateSet.empty(), DateSet.builder().build());
+    assertSame(DateSet.empty(), DateSet.of(DAY).minus(DateSet.of(DAY)));
+    assertTrue(DateSet.empty().isEmpty());
+    assertEquals(0, DateSet.empty().size());
+    try {
+      DateSet.empty().first();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      DateSet.empty().last();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test public void rangeRejectsReversedDates() {
+    try {
+      DateSet.range(DAY, DAY.minusDays(1));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test public void masksClipToMonthEdges() {
+    final DateSet set = DateSet.builder()
+        .add(LocalDate.of(2016, 1, 30), LocalDate.of(2016, 2, 1))
+        .add(LocalDate.of(2016, 2, 29), LocalDate.of(2016, 3, 1))
+        .build();
+    assertEquals(Utils.daysMask(30, 31), set.enabledMask(YearMonth.of(2016, 1)));
+    assertEquals(Utils.daysMask(1, 1) | Utils.daysMask(29, 29),
+        set.enabledMask(YearMonth.of(2016, 2)));
+    assertEquals(Utils.daysMask(1, 1), set.enabledMask(YearMonth.of(2016, 3)));
+    assertEquals(0, set.enabledMask(YearMonth.of(2016, 4)));
+    assertTrue(set.isEnabled(LocalDate.of(2016, 2, 29)));
+    assertFalse(set.isEnabled(LocalDate.of(2016, 2, 28)));
+  }
+
+  @Test public void equalsAndHashCodeFollowDates() {
+    final DateSet a = DateSet.of(DAY, DAY.plusDays(1), DAY.plusDays(5));
+    final DateSet b = DateSet.range(DAY, DAY.plusDays(1)).union(DateSet.of(DAY.plusDays(5)));
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertFalse(a.equals(DateSet.of(DAY)));
+  }
+
+  @Test public void encodingRoundTrips() {
+    final DateSet set = DateSet.builder()
+        .add(LocalDate.of(1900, 1, 1), LocalDate.of(1900, 1, 31))
+        .add(LocalDate.of(1969, 12, 31))
+        .add(LocalDate.of(1970, 1, 2))
+        .add(DAY, DAY.plusDays(1000))
+        .build();
+    assertEquals(set, DateSet.fromByteArray(set.toByteArray()));
+    assertSame(DateSet.empty(), DateSet.fromByteArray(DateSet.empty().toByteArray()));
+  }
+
+  @Test public void matchesTreeSetModel() {
+    final Random random = new Random(19);
+    for (int round = 0; round < 200; round++) {
+      final TreeSet<Integer> a = randomDays(random);
+      final TreeSet<Integer> b = randomDays(random);
+      final DateSet setA = toDateSet(a, random);
+      final DateSet setB = toDateSet(b, random);
+      assertSet(a, setA);
+
+      final TreeSet<Integer> union = new TreeSet<>(a);
+      union.addAll(b);
+      assertSet(union, setA.union(setB));
+
+      final TreeSet<Integer> intersection = new TreeSet<>(a);
+      intersection.retainAll(b);
+      assertSet(intersection, setA.intersect(setB));
+
+      final TreeSet<Integer> difference = new TreeSet<>(a);
+      difference.removeAll(b);
+      assertSet(difference, setA.minus(setB));
+
+      assertEquals(setA, DateSet.fromByteArray(setA.toByteArray()));
+    }
+  }
+
+  /** Days clustered around the epoch, so that sets cross it and runs touch. */
+  private static TreeSet<Integer> randomDays(Random random) {
+    final TreeSet<Integer> days = new TreeSet<>();
+    for (int i = random.nextInt(8); i > 0; i--) {
+      final int start = random.nextInt(200) - 100;
+      for (int day = start, end = start + random.nextInt(15); day <= end; day++) {
+        days.add(day);
+      }
+    }
+    return days;
+  }
+
+  /** Build a set from single days and short ranges, added in a random order. */
+  private static DateSet toDateSet(TreeSet<Integer> days, Random random) {
+    final List<int[]> ranges = new ArrayList<>();
+    for (int day : days) {
+      final int end = days.contains(day + 1) && random.nextBoolean() ? day + 1 : day;
+      ranges.add(new int[] { day, end });
+    }
+    final DateSet.Builder builder = DateSet.builder();
+    while (!ranges.isEmpty()) {
+      final int[] range = ranges.remove(random.nextInt(ranges.size()));
+      builder.add(LocalDate.ofEpochDay(range[0]), LocalDate.ofEpochDay(range[1]));
+    }
+    return builder.build();
+  }
+
+  private static void assertSet(TreeSet<Integer> expected, DateSet actual) {
+    assertEquals(expected.size(), actual.size());
+    assertEquals(expected.isEmpty(), actual.isEmpty());
+    if (!expected.isEmpty()) {
+      assertEquals(LocalDate.ofEpochDay(expected.first()), actual.first());
+      assertEquals(LocalDate.ofEpochDay(expected.last()), actual.last());
+    }
+    for (int day = -120; day <= 130; day++) {
+      assertEquals("day " + day, expected.contains(day),
+          actual.contains(LocalDate.ofEpochDay(day)));
+    }
+    for (int month = Months.ofEpochDay(-120); month <= Months.ofEpochDay(130); month++) {
+      final int firstDay = Months.firstDay(month);
+      int mask = 0;
+      for (int i = 0; i < Months.length(month); i++) {
+        mask |= expected.contains(firstDay + i) ? 1 << i : 0;
+      }
+      assertEquals(mask, actual.mask(month));
+    }
+    // Runs must be sorted, and neither overlapping nor adjacent.
+    for (int i = 1; i < actual.count; i++) {
+      assertTrue(actual.runs[2 * i] > actual.runs[2 * i - 1] + 1);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package lunatic;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class DayRunsTest {
+  @Test public void addMergesOverlappingAndAdjacentRuns() {
+    DayRuns runs = new DayRuns();
+    runs.add(10, 12);
+    runs.add(20, 22);
+    assertRuns(runs, 10, 12, 20, 22);
+
+    runs.add(13, 13);
+    assertRuns(runs, 10, 13, 20, 22);
+
+    runs.add(15, 19);
+    assertRuns(runs, 10, 13, 15, 22);
+
+    runs.add(14, 14);
+    assertRuns(runs, 10, 22);
+
+    runs.add(5, 30);
+    assertRuns(runs, 5, 30);
+  }
+
+  @Test public void addKeepsRunsSorted() {
+    DayRuns runs = new DayRuns();
+    runs.add(30, 30);
+    runs.add(10, 10);
+    runs.add(20, 20);
+    runs.add(-5, -3);
+    assertRuns(runs, -5, -3, 10, 10, 20, 20, 30, 30);
+  }
+
+  @Test public void removeSplitsAndTrimsRuns() {
+    DayRuns runs = new DayRuns();
+    runs.add(1, 30);
+    runs.remove(10, 12);
+    assertRuns(runs, 1, 9, 13, 30);
+
+    runs.remove(1, 1);
+    assertRuns(runs, 2, 9, 13, 30);
+
+    runs.remove(30, 40);
+    assertRuns(runs, 2, 9, 13, 29);
+
+    runs.remove(5, 20);
+    assertRuns(runs, 2, 4, 21, 29);
+
+    runs.remove(0, 100);
+    assertEquals(0, runs.count);
+  }
+
+  @Test public void removeOutsideOfRunsDoesNothing() {
+    DayRuns runs = new DayRuns();
+    runs.add(10, 20);
+    runs.remove(0, 9);
+    runs.remove(21, 30);
+    assertRuns(runs, 10, 20);
+  }
+
+  @Test public void containsChecksRunEnds() {
+    DayRuns runs = new DayRuns();
+    runs.add(10, 12);
+    runs.add(20, 20);
+    assertFalse(runs.contains(9));
+    assertTrue(runs.contains(10));
+    assertTrue(runs.contains(12));
+    assertFalse(runs.contains(13));
+    assertTrue(runs.contains(20));
+    assertFalse(runs.contains(21));
+  }
+
+  @Test public void maskClipsRunsToSpan() {
+    DayRuns runs = new DayRuns();
+    runs.add(-10, 2);
+    runs.add(5, 5);
+    runs.add(29, 40);
+
+    // Days 0 through 30, as a 31-day month starting at epoch day 0.
+    assertEquals(Utils.daysMask(1, 3) | Utils.daysMask(6, 6) | Utils.daysMask(30, 31),
+        runs.mask(0, 31));
+    // A 28-day month ignores the run starting after it.
+    assertEquals(Utils.daysMask(1, 3) | Utils.daysMask(6, 6), runs.mask(0, 28));
+    assertEquals(0, runs.mask(6, 20));
+    // Only the last day of the span reaches the first run.
+    assertEquals(1 << 30, runs.mask(-40, 31));
+  }
+
+  @Test public void daysCountsEveryRun() {
+    DayRuns runs = new DayRuns();
+    runs.add(1, 10);
+    runs.add(20, 20);
+    assertEquals(11, DayRuns.days(runs.runs, runs.count));
+  }
+
+  @Test public void matchesDayByDayModel() {
+    final int span = 400;
+    final Random random = new Random(6);
+    for (int round = 0; round < 200; round++) {
+      final DayRuns runs = new DayRuns();
+      final boolean[] model = new boolean[span];
+      for (int op = 0; op < 30; op++) {
+        final int start = random.nextInt(span);
+        final int end = Math.min(span - 1, start + random.nextInt(20));
+        final boolean add = random.nextInt(3) != 0;
+        if (add) {
+          runs.add(start, end);
+        } else {
+          runs.remove(start, end);
+        }
+        for (int day = start; day <= end; day++) {
+          model[day] = add;
+        }
+      }
+
+      for (int day = 0; day < span; day++) {
+        assertEquals("day " + day, model[day], runs.contains(day));
+      }
+      for (int firstDay = 0; firstDay + 31 <= span; firstDay += 17) {
+        int expected = 0;
+        for (int i = 0; i < 31; i++) {
+          expected |= model[firstDay + i] ? 1 << i : 0;
+        }
+        assertEquals(expected, runs.mask(firstDay, 31));
+      }
+      assertNormalized(runs);
+    }
+  }
+
+  @Test public void encodesNearbyRunsInAFewBytes() {
+    // Version, count, then the zigzag start and length of the first run, and the gap after the
+    // previous run and length of each other run.
+    assertArrayEquals(new byte[] { 1, 2, 0, 0, 0, 1 }, DayRuns.encode(new int[] { 0, 0, 2, 3 }, 2));
+    assertArrayEquals(new byte[] { 1, 1, 1, 0 }, DayRuns.encode(new int[] { -1, -1 }, 1));
+    assertArrayEquals(new byte[] { 1, 1, (byte) 0x80, 1, 0 },
+        DayRuns.encode(new int[] { 64, 64 }, 1));
+    assertArrayEquals(new byte[] { 1, 0 }, DayRuns.encode(new int[0], 0));
+  }
+
+  @Test public void encodingRoundTripsAtTheLimitsOfInt() {
+    assertRoundTrips(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    assertRoundTrips(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE - 1,
+        Integer.MAX_VALUE);
+    assertRoundTrips(-20000, -19000, -5, 5, 17000, 17001, 80000, 80000);
+  }
+
+  @Test public void encodingRoundTripsRandomRuns() {
+    final Random random = new Random(19);
+    for (int round = 0; round < 500; round++) {
+      final DayRuns runs = new DayRuns();
+      for (int i = random.nextInt(20); i > 0; i--) {
+        final int start = Math.min(random.nextInt() >> random.nextInt(32),
+            Integer.MAX_VALUE - (1 << 20));
+        runs.add(start, start + random.nextInt(1 << random.nextInt(20)));
+      }
+      final int[] expected = new int[2 * runs.count];
+      System.arraycopy(runs.runs, 0, expected, 0, expected.length);
+      assertArrayEquals(expected, DayRuns.decode(DayRuns.encode(runs.runs, runs.count)));
+    }
+  }
+
+  @Test public void decodeRejectsInvalidEncodings() {
+    assertInvalid();
+    assertInvalid(2, 0);
+    // More runs than bytes.
+    assertInvalid(1, 3, 0, 0);
+    // Missing the first run's length.
+    assertInvalid(1, 1, 0);
+    assertInvalid(1, 1, 0, 0, 0);
+    // A varint longer than five bytes.
+    assertInvalid(1, 1, 0x80, 0x80, 0x80, 0x80, 0x80, 0);
+    // A run ending after the last int day.
+    assertInvalid(1, 1, 0xfe, 0xff, 0xff, 0xff, 0x0f, 1);
+  }
+
+  private static void assertRoundTrips(int... runs) {
+    assertArrayEquals(runs, DayRuns.decode(DayRuns.encode(runs, runs.length / 2)));
+  }
+
+  private static void assertInvalid(int... bytes) {
+    final byte[] encoded = new byte[bytes.length];
+    for (int i = 0; i < bytes.length; i++) {
+      encoded[i] = (byte) bytes[i];
+    }
+    try {
+      DayRuns.decode(encoded);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  /** Runs must be sorted, non-empty, and neither overlapping nor adjacent. */
+  private static void assertNormalized(DayRuns runs) {
+    for (int i = 0; i < runs.count; i++) {
+      assertTrue(runs.runs[2 * i] <= runs.runs[2 * i + 1]);
+      if (i > 0) {
+        assertTrue(runs.runs[2 * i] > runs.runs[2 * i - 1] + 1);
+      }
+    }
+  }
+
+  private static void assertRuns(DayRuns runs, int... expected) {
+    final int[] actual = new int[2 * runs.count];
+    System.arraycopy(runs.runs, 0, actual, 0, actual.length);
+    assertArrayEquals(expected, actual);
+  }
+}
@@ -0,0 +1,90 @@
+package lunatic;
+
+import java.util.Locale;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.chrono.HijrahChronology;
+import org.threeten.bp.chrono.IsoChronology;
+import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.format.TextStyle;
+import org.threeten.bp.temporal.WeekFields;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public final class FormatterCacheTest {
+  private static final IsoChronology ISO = IsoChronology.INSTANCE;
+
+  @Before public void setUp() {
+    FormatterCache.clear();
+  }
+
+  @Test public void headerFormattersAreReused() {
+    final DateTimeFormatter formatter = FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO);
+    assertSame(formatter, FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO));
+    // Keys are compared by value.
+    assertSame(formatter,
+        FormatterCache.headerFormatter(new Locale("en", "US"), new String("MMMM y"), ISO));
+  }
+
+  @Test public void headerFormattersAreKeyedByLocalePatternAndChronology() {
+    final DateTimeFormatter formatter = FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO);
+    assertNotSame(formatter, FormatterCache.headerFormatter(Locale.FRANCE, "MMMM y", ISO));
+    assertNotSame(formatter, FormatterCache.headerFormatter(Locale.US, "MMM y", ISO));
+    assertNotSame(formatter,
+        FormatterCache.headerFormatter(Locale.US, "MMMM y", HijrahChronology.INSTANCE));
+    assertEquals(Locale.FRANCE,
+        FormatterCache.headerFormatter(Locale.FRANCE, "MMMM y", ISO).getLocale());
+  }
+
+  @Test public void weekdayNamesAreKeyedByWeekFieldsAndStyle() {
+    final WeekFields monday = WeekFields.of(DayOfWeek.MONDAY, 4);
+    final WeekFields sunday = WeekFields.of(DayOfWeek.SUNDAY, 1);
+    final String[] names = FormatterCache.weekdayNames(Locale.US, monday, TextStyle.SHORT);
+    assertSame(names, FormatterCache.weekdayNames(Locale.US, monday, TextStyle.SHORT));
+    assertArrayEquals(new String[] { "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun" }, names);
+
+    final String[] fromSunday = FormatterCache.weekdayNames(Locale.US, sunday, TextStyle.SHORT);
+    assertEquals("Sun", fromSunday[0]);
+    assertEquals("Mon", fromSunday[1]);
+    assertNotSame(names, FormatterCache.weekdayNames(Locale.US, monday, TextStyle.FULL));
+  }
+
+  @Test public void monthNamesAreKeyedByChronologyAndStyle() {
+    final String[] names = FormatterCache.monthNames(Locale.US, ISO, TextStyle.SHORT);
+    assertSame(names, FormatterCache.monthNames(Locale.US, ISO, TextStyle.SHORT));
+    assertNotSame(names, FormatterCache.monthNames(Locale.US, ISO, TextStyle.FULL));
+    assertNotSame(names,
+        FormatterCache.monthNames(Locale.US, HijrahChronology.INSTANCE, TextStyle.SHORT));
+  }
+
+  @Test public void kindsOfEntryDoNotCollide() {
+    // A formatter and weekday names keyed by the same locale are kept apart.
+    FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO);
+    assertEquals(7, FormatterCache.weekdayNames(Locale.US, WeekFields.ISO, TextStyle.SHORT).length);
+    assertEquals(12, FormatterCache.monthNames(Locale.US, ISO, TextStyle.SHORT).length);
+  }
+
+  @Test public void clearDropsEntries() {
+    final DateTimeFormatter formatter = FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO);
+    final String[] names = FormatterCache.weekdayNames(Locale.US, WeekFields.ISO, TextStyle.SHORT);
+    FormatterCache.clear();
+    assertNotSame(formatter, FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO));
+    assertNotSame(names, FormatterCache.weekdayNames(Locale.US, WeekFields.ISO, TextStyle.SHORT));
+  }
+
+  @Test public void evictsLeastRecentlyUsed() {
+    final DateTimeFormatter first = FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO);
+    final DateTimeFormatter second = FormatterCache.headerFormatter(Locale.US, "MMM y", ISO);
+    for (int i = 0; i < FormatterCache.MAX_SIZE - 1; i++) {
+      // Touch the first formatter, so that the second is the eldest.
+      FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO);
+      FormatterCache.headerFormatter(Locale.US, "'" + i + "' y", ISO);
+    }
+    assertSame(first, FormatterCache.headerFormatter(Locale.US, "MMMM y", ISO));
+    assertNotSame(second, FormatterCache.headerFormatter(Locale.US, "MMM y", ISO));
+  }
+}
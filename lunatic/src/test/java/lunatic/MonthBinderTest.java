@@ -0,0 +1,66 @@
+package lunatic;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+
+public final class MonthBinderTest {
+  private static final int NOVEMBER = Months.pack(2016, 11);
+  private static final int DECEMBER = Months.pack(2016, 12);
+  private static final int JANUARY = Months.pack(2017, 1);
+
+  private final Selection selection = new Selection(Selection.Mode.RANGE);
+  private MonthBinder binder;
+
+  @Before public void setUp() {
+    Interval interval = new Interval(LocalDate.of(2016, 1, 1), LocalDate.of(2017, 12, 31));
+    DateFilterInternal filter = new DateFilterInternal();
+    filter.setInterval(interval);
+    binder = new MonthBinder(interval, day(2016, 12, 10), filter, selection);
+  }
+
+  @Test public void activatedDaysAreClippedToMonth() {
+    selection.selectRange(LocalDate.of(2016, 11, 28), LocalDate.of(2017, 1, 2));
+    assertEquals(Utils.daysMask(28, 30), binder.getActivatedDays(NOVEMBER));
+    assertEquals(Utils.daysMask(1, 31), binder.getActivatedDays(DECEMBER));
+    assertEquals(Utils.daysMask(1, 2), binder.getActivatedDays(JANUARY));
+  }
+
+  @Test public void highlightedDaysAreClippedToMonth() {
+    assertEquals(0, binder.getHighlightedDays(DECEMBER));
+    binder.setHighlight(day(2016, 11, 30), day(2016, 12, 3));
+    assertEquals(Utils.daysMask(30, 30), binder.getHighlightedDays(NOVEMBER));
+    assertEquals(Utils.daysMask(1, 3), binder.getHighlightedDays(DECEMBER));
+    assertEquals(0, binder.getHighlightedDays(JANUARY));
+
+    binder.clearHighlight();
+    assertEquals(0, binder.getHighlightedDays(DECEMBER));
+  }
+
+  @Test public void rangeEdgesFollowAdjacentDays() {
+    selection.selectRange(LocalDate.of(2016, 11, 30), LocalDate.of(2016, 12, 1));
+    binder.setHighlight(day(2016, 12, 31), day(2017, 1, 1));
+
+    assertEquals(MonthBinder.RANGE_ACTIVATED_AFTER, binder.getRangeEdges(NOVEMBER));
+    assertEquals(MonthBinder.RANGE_ACTIVATED_BEFORE | MonthBinder.RANGE_HIGHLIGHTED_AFTER,
+        binder.getRangeEdges(DECEMBER));
+    assertEquals(MonthBinder.RANGE_HIGHLIGHTED_BEFORE, binder.getRangeEdges(JANUARY));
+  }
+
+  @Test public void enabledDaysAreClippedToInterval() {
+    assertEquals(Utils.daysMask(31), binder.getEnabledDays(DECEMBER));
+    assertEquals(Utils.daysMask(31), binder.getEnabledDays(Months.pack(2016, 1)));
+
+    Interval interval = new Interval(LocalDate.of(2016, 12, 5), LocalDate.of(2016, 12, 20));
+    DateFilterInternal filter = new DateFilterInternal();
+    filter.setInterval(interval);
+    binder = new MonthBinder(interval, day(2016, 12, 10), filter, selection);
+    assertEquals(Utils.daysMask(5, 20), binder.getEnabledDays(DECEMBER));
+  }
+
+  private static int day(int year, int month, int dayOfMonth) {
+    return (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+  }
+}
@@ -0,0 +1,63 @@
+package lunatic;
+
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.YearMonth;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Packed month arithmetic, checked against {@link LocalDate} and {@link YearMonth}.
+ */
+public final class MonthsTest {
+  @Test public void packsConsecutiveMonthsAsConsecutiveInts() {
+    assertEquals(Months.pack(2016, 12) + 1, Months.pack(2017, 1));
+    assertEquals(Months.pack(0, 1) - 1, Months.pack(-1, 12));
+  }
+
+  @Test public void unpacksYearAndMonthBeforeYearZero() {
+    final int month = Months.pack(-1, 3);
+    assertEquals(-1, Months.year(month));
+    assertEquals(3, Months.monthOfYear(month));
+    assertEquals(YearMonth.of(-1, 3), Months.toYearMonth(month));
+  }
+
+  @Test public void leapYears() {
+    assertEquals(29, Months.length(Months.pack(2016, 2)));
+    assertEquals(28, Months.length(Months.pack(2017, 2)));
+    assertEquals(28, Months.length(Months.pack(1900, 2)));
+    assertEquals(29, Months.length(Months.pack(2000, 2)));
+    assertEquals(29, Months.length(Months.pack(0, 2)));
+  }
+
+  @Test public void matchesYearMonthOverFourCenturies() {
+    for (int year = 1800; year <= 2200; year++) {
+      for (int monthOfYear = 1; monthOfYear <= 12; monthOfYear++) {
+        final YearMonth expected = YearMonth.of(year, monthOfYear);
+        final int month = Months.of(expected);
+        assertEquals(expected.toString(), expected.lengthOfMonth(), Months.length(month));
+        assertEquals(expected.toString(), expected.atDay(1).toEpochDay(), Months.firstDay(month));
+        assertEquals(expected.toString(), expected.atDay(1).getDayOfWeek().getValue(),
+            Months.dayOfWeek(Months.firstDay(month)));
+      }
+    }
+  }
+
+  @Test public void ofEpochDayMatchesLocalDate() {
+    final int start = (int) LocalDate.of(-400, 1, 1).toEpochDay();
+    final int end = (int) LocalDate.of(2400, 12, 31).toEpochDay();
+    for (int day = start; day <= end; day++) {
+      final LocalDate date = LocalDate.ofEpochDay(day);
+      assertEquals(date.toString(), Months.of(date), Months.ofEpochDay(day));
+    }
+  }
+
+  @Test public void startOfWeekOffset() {
+    // December 2016 starts on a Thursday.
+    final int month = Months.pack(2016, 12);
+    assertEquals(3, Months.startOfWeekOffset(month, 1));
+    assertEquals(4, Months.startOfWeekOffset(month, 7));
+    assertEquals(0, Months.startOfWeekOffset(month, 4));
+    assertEquals(6, Months.startOfWeekOffset(month, 5));
+  }
+}
@@ -0,0 +1,63 @@
+package lunatic;
+
+import java.util.Arrays;
+import java.util.Locale;
+import org.junit.Test;
+import org.threeten.bp.DayOfWeek;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.chrono.HijrahChronology;
+import org.threeten.bp.format.TextStyle;
+import org.threeten.bp.temporal.WeekFields;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public final class OptionsTest {
+  private static final Options OPTIONS = Options.builder(new Locale("ar", "SA"))
+      .min(LocalDate.of(1960, 1, 1))
+      .max(LocalDate.of(2049, 12, 31))
+      .now(LocalDate.of(2016, 12, 10))
+      .headerPattern("LLLL y")
+      .weekFields(WeekFields.of(DayOfWeek.SATURDAY, 1))
+      .weekdayStyle(TextStyle.SHORT)
+      .chronology(HijrahChronology.INSTANCE)
+      .build();
+
+  @Test public void encodingRoundTrips() {
+    assertEquals(OPTIONS, Options.fromByteArray(OPTIONS.toByteArray()));
+  }
+
+  @Test public void encodingRoundTripsDefaults() {
+    final Options options = Options.builder(Locale.US).build();
+    assertEquals(options, Options.fromByteArray(options.toByteArray()));
+  }
+
+  @Test public void encodingKeepsLocaleVariant() {
+    final Options options = Options.builder(new Locale("ja", "JP", "JP")).build();
+    assertEquals(options.locale(), Options.fromByteArray(options.toByteArray()).locale());
+  }
+
+  @Test public void decodeRejectsInvalidEncodings() {
+    final byte[] bytes = OPTIONS.toByteArray();
+    assertInvalid(new byte[0]);
+    assertInvalid(Arrays.copyOf(bytes, bytes.length - 1));
+    assertInvalid(Arrays.copyOf(bytes, bytes.length + 1));
+
+    final byte[] version = bytes.clone();
+    version[0] = 2;
+    assertInvalid(version);
+
+    // The first day of the week follows the version and three dates.
+    final byte[] firstDayOfWeek = bytes.clone();
+    firstDayOfWeek[1 + 12 + 2 + "LLLL y".length()] = 8;
+    assertInvalid(firstDayOfWeek);
+  }
+
+  private static void assertInvalid(byte[] bytes) {
+    try {
+      Options.fromByteArray(bytes);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package lunatic;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class SelectionTest {
+  private static final LocalDate DAY = LocalDate.of(2016, 12, 10);
+
+  private final List<int[]> changes = new ArrayList<>();
+
+  private Selection newSelection(Selection.Mode mode) {
+    Selection selection = new Selection(mode);
+    selection.setObserver(new Selection.Observer() {
+      @Override public void onSelectionChanged(int firstDay, int lastDay) {
+        changes.add(new int[] { firstDay, lastDay });
+      }
+    });
+    return selection;
+  }
+
+  @Before public void setUp() {
+    changes.clear();
+  }
+
+  @Test public void singleReplacesSelection() {
+    Selection selection = newSelection(Selection.Mode.SINGLE);
+    selection.select(DAY);
+    selection.select(DAY.plusDays(3));
+
+    assertFalse(selection.contains(DAY));
+    assertTrue(selection.contains(DAY.plusDays(3)));
+    assertEquals(1, selection.size());
+    // The old day is reported separately from the new one.
+    assertChanges(day(0), day(0), day(0), day(0), day(3), day(3));
+  }
+
+  @Test public void singleRejectsRanges() {
+    Selection selection = newSelection(Selection.Mode.SINGLE);
+    try {
+      selection.selectRange(DAY, DAY.plusDays(1));
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    selection.selectRange(DAY, DAY);
+    assertTrue(selection.contains(DAY));
+  }
+
+  @Test public void rangeCompletesInEitherOrder() {
+    Selection selection = newSelection(Selection.Mode.RANGE);
+    selection.select(DAY);
+    assertTrue(selection.isRangeOpen());
+
+    selection.select(DAY.minusDays(4));
+    assertFalse(selection.isRangeOpen());
+    assertEquals(DAY.minusDays(4), selection.first());
+    assertEquals(DAY, selection.last());
+    assertEquals(5, selection.size());
+
+    // A third tap starts a new range.
+    selection.select(DAY.plusDays(10));
+    assertTrue(selection.isRangeOpen());
+    assertEquals(1, selection.size());
+  }
+
+  @Test public void multipleTogglesDates() {
+    Selection selection = newSelection(Selection.Mode.MULTIPLE);
+    selection.select(DAY);
+    selection.select(DAY.plusDays(2));
+    selection.select(DAY.plusDays(1));
+    assertEquals(3, selection.size());
+    assertEquals(DAY, selection.first());
+
+    selection.select(DAY.plusDays(1));
+    assertFalse(selection.contains(DAY.plusDays(1)));
+    assertEquals(2, selection.size());
+  }
+
+  @Test public void multipleAddsAndRemovesRanges() {
+    Selection selection = newSelection(Selection.Mode.MULTIPLE);
+    selection.selectRange(DAY, DAY.plusDays(9));
+    selection.selectRange(DAY.plusDays(20), DAY.plusDays(29));
+    selection.deselectRange(DAY.plusDays(5), DAY.plusDays(24));
+
+    assertEquals(10, selection.size());
+    assertTrue(selection.contains(DAY.plusDays(4)));
+    assertFalse(selection.contains(DAY.plusDays(5)));
+    assertTrue(selection.contains(DAY.plusDays(25)));
+  }
+
+  @Test public void setModeClearsOnChange() {
+    Selection selection = newSelection(Selection.Mode.MULTIPLE);
+    selection.select(DAY);
+    selection.setMode(Selection.Mode.MULTIPLE);
+    assertFalse(selection.isEmpty());
+
+    selection.setMode(Selection.Mode.RANGE);
+    assertTrue(selection.isEmpty());
+    assertNull(selection.first());
+  }
+
+  @Test public void restoreReplacesSelection() {
+    Selection saved = newSelection(Selection.Mode.MULTIPLE);
+    saved.selectRange(DAY, DAY.plusDays(2));
+    saved.select(DAY.plusDays(300));
+    final byte[] encoded = saved.encodeRuns();
+
+    Selection selection = newSelection(Selection.Mode.SINGLE);
+    selection.select(DAY.minusDays(1));
+    changes.clear();
+    selection.restore(Selection.Mode.MULTIPLE, false, encoded);
+
+    assertEquals(Selection.Mode.MULTIPLE, selection.getMode());
+    assertEquals(4, selection.size());
+    assertFalse(selection.contains(DAY.minusDays(1)));
+    assertChanges(day(-1), day(-1), day(0), day(300));
+  }
+
+
+  @Test public void maskOfMonth() {
+    Selection selection = newSelection(Selection.Mode.RANGE);
+    selection.selectRange(LocalDate.of(2016, 11, 28), LocalDate.of(2016, 12, 3));
+    final int firstDay = Months.firstDay(Months.pack(2016, 12));
+    assertEquals(Utils.daysMask(1, 3), selection.mask(firstDay, 31));
+  }
+
+  private static int day(int offset) {
+    return (int) DAY.toEpochDay() + offset;
+  }
+
+  private void assertChanges(int... expected) {
+    final int[] actual = new int[2 * changes.size()];
+    for (int i = 0; i < changes.size(); i++) {
+      actual[2 * i] = changes.get(i)[0];
+      actual[2 * i + 1] = changes.get(i)[1];
+    }
+    assertArrayEquals(expected, actual);
+  }
+}